@@ -7,6 +7,7 @@ import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
 import static org.msyu.javautil.exceptions.ExampleUtils.youAreAPirate;
+import static org.msyu.javautil.exceptions.ParameterizedAutoCloseable.Locks.guard;
 import static org.msyu.javautil.exceptions.ParameterizedAutoCloseable.Locks.lock;
 import static org.msyu.javautil.exceptions.ParameterizedAutoCloseable.wrap;
 import static org.testng.Assert.assertEquals;
@@ -78,6 +79,20 @@ public class ParameterizedAutoCloseableExamples {
         }
     }
 
+    /**
+     * When the lock is taken very often, obtain a reusable guard once and re-arm it on every acquisition.
+     * This avoids allocating a new wrapper each time.
+     */
+    @Test
+    public void example06_ReusableLockGuard() {
+        LockGuard someLockGuard = guard(new ReentrantLock());
+        for (int i = 0; i < 3; ++i) {
+            try (LockGuard g = someLockGuard.lock()) {
+                youAreAPirate(g);
+            }
+        }
+    }
+
 
     private static class CloseableObject {
         public void customClose() throws IOException {
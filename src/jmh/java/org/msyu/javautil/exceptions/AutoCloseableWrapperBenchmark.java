@@ -0,0 +1,50 @@
+package org.msyu.javautil.exceptions;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.msyu.javautil.exceptions.AutoCloseableWrapper.runOnClose;
+
+/**
+ * Compares running a close action through an {@link AutoCloseableWrapper} against calling it directly.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AutoCloseableWrapperBenchmark {
+
+    private long counter;
+
+    @Benchmark
+    public long directCall() {
+        try {
+            return counter;
+        } finally {
+            onClose();
+        }
+    }
+
+    @Benchmark
+    public long tryWithResourcesWrapper() {
+        try (AutoCloseableWrapper<RuntimeException> acw = runOnClose(this::onClose)) {
+            return counter;
+        }
+    }
+
+    private void onClose() {
+        ++counter;
+    }
+
+}
@@ -0,0 +1,134 @@
+package org.msyu.javautil.exceptions;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.msyu.javautil.exceptions.CloseableChain.newCloseableChain;
+
+/**
+ * Measures the cost of building {@link CloseableChain}s of various lengths and tearing them down,
+ * both in an orderly fashion and when the last constructor fails (with a regular or a {@link StacklessException}).
+ * A reused {@link MutableCloseableChain} and a {@link CloseableChainTemplate} (opened on its own
+ * and into a reused mutable chain) are measured for comparison.
+ *
+ * <p>Run with {@code gradle jmh -Pjmh.include=CloseableChainBenchmark};
+ * the {@code gc} profiler is enabled by the task, so look at {@code gc.alloc.rate.norm} for bytes per operation.</p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CloseableChainBenchmark {
+
+    private static final Object RESOURCE = new Object();
+
+    @Param({"1", "4", "16"})
+    public int links;
+
+    private final Exception suppressor = new Exception("suppressor");
+
+    private final MutableCloseableChain<Exception> mutableChain = MutableCloseableChain.newMutableCloseableChain();
+
+    private CloseableChainTemplate<Object, Object, Exception, Exception> template;
+
+    @Setup
+    public void setUp() {
+        CloseableChainTemplate.Builder<Object, Object, Exception, Exception> builder = CloseableChainTemplate.builder();
+        for (int i = 0; i < links; ++i) {
+            builder = builder.then(CloseableChainBenchmark::construct, CloseableChainBenchmark::destroy);
+        }
+        template = builder.build();
+    }
+
+    @Benchmark
+    public CloseableChain<?, Exception> build() throws Exception {
+        return buildChain(links);
+    }
+
+    @Benchmark
+    public void buildAndClose() throws Exception {
+        CloseableChain.close(buildChain(links));
+    }
+
+    @Benchmark
+    public void buildAndCloseWithSuppressor() throws Exception {
+        CloseableChain.close(buildChain(links), suppressor);
+    }
+
+    @Benchmark
+    public Exception constructorFailure() {
+        try {
+            buildChain(links - 1).chain(CloseableChainBenchmark::fail, CloseableChainBenchmark::destroy);
+            throw new AssertionError("the constructor should have failed");
+        } catch (Exception e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Exception constructorFailureStackless() {
+        try {
+            buildChain(links - 1).chain(CloseableChainBenchmark::failStackless, CloseableChainBenchmark::destroy);
+            throw new AssertionError("the constructor should have failed");
+        } catch (Exception e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public void buildAndCloseMutable() throws Exception {
+        Object output = null;
+        for (int i = 0; i < links; ++i) {
+            output = mutableChain.chain(output, CloseableChainBenchmark::construct, CloseableChainBenchmark::destroy);
+        }
+        mutableChain.close();
+    }
+
+    @Benchmark
+    public void openAndCloseTemplate() throws Exception {
+        template.open(null).close();
+    }
+
+    @Benchmark
+    public void openAndCloseTemplateMutable() throws Exception {
+        template.open(null, mutableChain);
+        mutableChain.close();
+    }
+
+    private static CloseableChain<?, Exception> buildChain(int links) throws Exception {
+        CloseableChain<?, Exception> chain = newCloseableChain();
+        for (int i = 0; i < links; ++i) {
+            chain = chain.chain(CloseableChainBenchmark::construct, CloseableChainBenchmark::destroy);
+        }
+        return chain;
+    }
+
+    private static Object construct(Object prev) {
+        return RESOURCE;
+    }
+
+    private static Object fail(Object prev) throws Exception {
+        throw new Exception("constructor failure");
+    }
+
+    private static Object failStackless(Object prev) throws Exception {
+        throw new StacklessException("constructor failure");
+    }
+
+    private static void destroy(Object output) throws Exception {
+    }
+
+}
@@ -0,0 +1,88 @@
+package org.msyu.javautil.exceptions;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Compares calling a {@link FunctionWithException} directly with calling it through the translation adapters
+ * ({@link FunctionWithException#sneaky(FunctionWithException) sneaky},
+ * {@link FunctionWithException#unchecked(FunctionWithException) unchecked} and
+ * {@link FunctionWithException#mapChecked(FunctionWithException, Class, Function) mapChecked})
+ * and through a hand-written wrapper. When the adapters are inlined, all variants score the same
+ * and allocate nothing.
+ *
+ * <p>Run with {@code gradle jmh -Pjmh.include=ExceptionTranslationBenchmark};
+ * add {@code -Pjmh.args='-jvmArgs -XX:+UnlockDiagnosticVMOptions -jvmArgs -XX:+PrintInlining'} to see the inlining
+ * decisions.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ExceptionTranslationBenchmark {
+
+    private String input = "input";
+
+    private final FunctionWithException<String, Integer, IOException> function = ExceptionTranslationBenchmark::length;
+
+    private final Function<String, Integer> handWritten = s -> {
+        try {
+            return function.apply(s);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    };
+
+    private final Function<String, Integer> sneaky = FunctionWithException.sneaky(function);
+
+    private final Function<String, Integer> unchecked = FunctionWithException.unchecked(function);
+
+    private final FunctionWithException<String, Integer, Exception> mapChecked =
+            FunctionWithException.mapChecked(function, IOException.class, Exception::new);
+
+    private static Integer length(String s) throws IOException {
+        if (s == null) {
+            throw new IOException("no input");
+        }
+        return s.length();
+    }
+
+    @Benchmark
+    public Integer direct() throws IOException {
+        return function.apply(input);
+    }
+
+    @Benchmark
+    public Integer handWritten() {
+        return handWritten.apply(input);
+    }
+
+    @Benchmark
+    public Integer sneaky() {
+        return sneaky.apply(input);
+    }
+
+    @Benchmark
+    public Integer unchecked() {
+        return unchecked.apply(input);
+    }
+
+    @Benchmark
+    public Integer mapChecked() throws Exception {
+        return mapChecked.apply(input);
+    }
+
+}
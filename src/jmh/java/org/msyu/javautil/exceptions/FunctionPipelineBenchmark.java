@@ -0,0 +1,72 @@
+package org.msyu.javautil.exceptions;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares a pipeline of {@code depth} stages built with nested
+ * {@link FunctionWithException#andThen(FunctionWithException) andThen()} calls to the same stages in a
+ * {@link FunctionPipeline}. The stages cycle through four different lambdas, so that no call site sees
+ * a single receiver class.
+ *
+ * <p>Run with {@code gradle jmh -Pjmh.include=FunctionPipelineBenchmark}.</p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FunctionPipelineBenchmark {
+
+    @SuppressWarnings("unchecked")
+    private static final FunctionWithException<Integer, Integer, Exception>[] STAGES =
+            (FunctionWithException<Integer, Integer, Exception>[]) new FunctionWithException<?, ?, ?>[]{
+                    (FunctionWithException<Integer, Integer, Exception>) n -> n + 1,
+                    (FunctionWithException<Integer, Integer, Exception>) n -> n - 1,
+                    (FunctionWithException<Integer, Integer, Exception>) n -> n ^ 1,
+                    (FunctionWithException<Integer, Integer, Exception>) n -> n & 63,
+            };
+
+    @Param({"4", "16", "64"})
+    public int depth;
+
+    private Integer input = 5;
+
+    private FunctionWithException<Integer, Integer, Exception> nested;
+
+    private FunctionPipeline<Integer, Integer, Exception> fused;
+
+    @Setup
+    public void setUp() {
+        nested = FunctionWithException.identity();
+        FunctionPipeline.Builder<Integer, Integer, Exception> builder = FunctionPipeline.builder();
+        for (int i = 0; i < depth; ++i) {
+            nested = nested.andThen(STAGES[i % STAGES.length]);
+            builder = builder.then(STAGES[i % STAGES.length]);
+        }
+        fused = builder.build();
+    }
+
+    @Benchmark
+    public Integer nestedAndThen() throws Exception {
+        return nested.apply(input);
+    }
+
+    @Benchmark
+    public Integer fusedPipeline() throws Exception {
+        return fused.apply(input);
+    }
+
+}
@@ -0,0 +1,60 @@
+package org.msyu.javautil.exceptions;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Compares guarding an uncontended critical section with try-with-resources over
+ * {@link ParameterizedAutoCloseable.Locks#lock(Lock)} or a reusable {@link LockGuard}
+ * against a plain {@code lock()/unlock()} pair.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ParameterizedAutoCloseableBenchmark {
+
+    private final Lock lock = new ReentrantLock();
+
+    private final LockGuard guard = ParameterizedAutoCloseable.Locks.guard(lock);
+
+    private long counter;
+
+    @Benchmark
+    public long plainLockUnlock() {
+        lock.lock();
+        try {
+            return ++counter;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Benchmark
+    public long tryWithResourcesLock() {
+        try (ParameterizedAutoCloseable<RuntimeException> pac = ParameterizedAutoCloseable.Locks.lock(lock)) {
+            return ++counter;
+        }
+    }
+
+    @Benchmark
+    public long tryWithResourcesGuard() {
+        try (LockGuard g = guard.lock()) {
+            return ++counter;
+        }
+    }
+
+}
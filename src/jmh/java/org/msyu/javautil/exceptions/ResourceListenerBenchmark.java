@@ -0,0 +1,75 @@
+package org.msyu.javautil.exceptions;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the overhead of {@link ResourceListener}s on building and closing a {@link CloseableChain}.
+ * Compare the {@code none} case with {@link CloseableChainBenchmark#buildAndClose()}:
+ * a chain without a listener should cost the same as before listeners were introduced.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ResourceListenerBenchmark {
+
+    private static final Object RESOURCE = new Object();
+
+    @Param({"none", "noop", "histogram"})
+    public String listener;
+
+    @Param({"4"})
+    public int links;
+
+    private ResourceListener resourceListener;
+
+    @Setup
+    public void setUp() {
+        switch (listener) {
+            case "none":
+                resourceListener = null;
+                break;
+            case "noop":
+                resourceListener = new ResourceListener() {};
+                break;
+            case "histogram":
+                resourceListener = new HistogramResourceListener();
+                break;
+            default:
+                throw new IllegalArgumentException(listener);
+        }
+    }
+
+    @Benchmark
+    public void buildAndClose() throws Exception {
+        CloseableChain<?, Exception> chain = resourceListener == null ?
+                CloseableChain.newCloseableChain() :
+                CloseableChain.newCloseableChain(resourceListener);
+        for (int i = 0; i < links; ++i) {
+            chain = chain.chain(ResourceListenerBenchmark::construct, ResourceListenerBenchmark::destroy);
+        }
+        CloseableChain.close(chain);
+    }
+
+    private static Object construct(Object prev) {
+        return RESOURCE;
+    }
+
+    private static void destroy(Object output) throws Exception {
+    }
+
+}
@@ -0,0 +1,161 @@
+package org.msyu.javautil.exceptions;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
+
+/**
+ * An asynchronous counterpart of {@link CloseableChain}, whose constructors and destructors return
+ * {@link CompletionStage}s instead of blocking.
+ *
+ * <p>Chaining returns immediately; each constructor is invoked once the previous link is constructed.
+ * If a constructor fails (either by throwing or by returning a stage that completes exceptionally),
+ * the links constructed so far are closed in reverse order, each destructor waiting for the previous one to complete,
+ * and the chain completes exceptionally with the constructor's exception, which suppresses any destructor exceptions.
+ * The closing methods follow the same suppression rules as the ones in {@code CloseableChain}.</p>
+ *
+ * <p>As usual with {@code CompletionStage}s, an exception may reach dependent stages wrapped in
+ * a {@link CompletionException}.</p>
+ */
+public final class AsyncCloseableChain<I, C extends Exception> {
+
+    public static <C extends Exception> AsyncCloseableChain<Void, C> newAsyncCloseableChain() {
+        return new AsyncCloseableChain<>(CompletableFuture.completedFuture(new Link<>(null, null, null)));
+    }
+
+    private final CompletionStage<Link<I>> tail;
+
+    private AsyncCloseableChain(CompletionStage<Link<I>> tail) {
+        this.tail = tail;
+    }
+
+    public final <O>
+    AsyncCloseableChain<O, C> chain(
+            FunctionWithException<? super I, ? extends CompletionStage<O>, ?> constructor,
+            FunctionWithException<? super O, ? extends CompletionStage<?>, ? extends C> destructor
+    ) {
+        return new AsyncCloseableChain<>(tail.thenCompose(prev -> {
+            CompletionStage<O> newOutput;
+            try {
+                newOutput = Objects.requireNonNull(constructor.apply(prev.output), "constructor returned null");
+            } catch (Throwable x) {
+                return closeLinks(prev, x).thenCompose(AsyncCloseableChain::failed);
+            }
+            return newOutput
+                    .handle((output, x) -> x == null ?
+                            CompletableFuture.completedFuture(new Link<>(output, destructor, prev)) :
+                            closeLinks(prev, unwrap(x)).thenCompose(AsyncCloseableChain::<Link<O>>failed)
+                    )
+                    .thenCompose(Function.identity());
+        }));
+    }
+
+    /**
+     * @return a stage that completes with the output of the last link,
+     * or exceptionally if the chain failed to construct.
+     */
+    public final CompletionStage<I> getOutput() {
+        return tail.thenApply(link -> link.output);
+    }
+
+    /**
+     * Closes the chain in reverse order once it's constructed, adding any exceptions to the suppressed list of
+     * {@code suppressor}.
+     *
+     * @return a stage that completes when all links are closed,
+     * or exceptionally with the construction failure if the chain failed to construct
+     * (in which case it has already been closed).
+     *
+     * @throws NullPointerException if {@code suppressor == null}.
+     */
+    public static CompletionStage<Void> close(AsyncCloseableChain<?, ?> chain, Throwable suppressor) {
+        Objects.requireNonNull(suppressor, "suppressor is null");
+        return chain.tail
+                .thenCompose(link -> closeLinks(link, suppressor))
+                .thenApply(__ -> null);
+    }
+
+    /**
+     * Closes the chain in reverse order once it's constructed.
+     *
+     * @return a stage that completes when all links are closed. It completes exceptionally with the first
+     * destructor exception, which suppresses the subsequent ones, or with the construction failure
+     * if the chain failed to construct (in which case it has already been closed).
+     */
+    public static <C extends Exception> CompletionStage<Void> close(AsyncCloseableChain<?, C> chain) {
+        return chain.tail
+                .thenCompose(link -> closeLinks(link, null))
+                .thenCompose(throwable -> throwable == null ?
+                        CompletableFuture.<Void>completedFuture(null) :
+                        failed(throwable)
+                );
+    }
+
+    /**
+     * @return a stage that completes with {@code throwable}, or the first destructor exception if it's {@code null},
+     * suppressing the subsequent destructor exceptions.
+     */
+    private static CompletionStage<Throwable> closeLinks(Link<?> link, Throwable throwable) {
+        CompletionStage<Throwable> result = CompletableFuture.completedFuture(throwable);
+        for (; link != null; link = link.prev) {
+            if (link.output != null && link.destructor != null) {
+                Link<?> current = link;
+                result = result.thenCompose(primary -> current.closeThis().handle((__, t) -> {
+                    if (t == null) {
+                        return primary;
+                    }
+                    t = unwrap(t);
+                    if (primary == null) {
+                        return t;
+                    }
+                    primary.addSuppressed(t);
+                    return primary;
+                }));
+            }
+        }
+        return result;
+    }
+
+    private static Throwable unwrap(Throwable throwable) {
+        return throwable instanceof CompletionException && throwable.getCause() != null ?
+                throwable.getCause() :
+                throwable;
+    }
+
+    private static <T> CompletionStage<T> failed(Throwable throwable) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(throwable);
+        return future;
+    }
+
+    private static final class Link<I> {
+
+        private final I output;
+
+        private final FunctionWithException<? super I, ? extends CompletionStage<?>, ?> destructor;
+
+        private final Link<?> prev;
+
+        private Link(
+                I output,
+                FunctionWithException<? super I, ? extends CompletionStage<?>, ?> destructor,
+                Link<?> prev
+        ) {
+            this.output = output;
+            this.destructor = destructor;
+            this.prev = prev;
+        }
+
+        private CompletionStage<?> closeThis() {
+            try {
+                return Objects.requireNonNull(destructor.apply(output), "destructor returned null");
+            } catch (Throwable t) {
+                return failed(t);
+            }
+        }
+
+    }
+
+}
@@ -1,5 +1,9 @@
 package org.msyu.javautil.exceptions;
 
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
 public final class AutoCloseableWrapper<X extends Exception> implements AutoCloseable {
 
     public static <X extends Exception> AutoCloseableWrapper<X> runOnClose(
@@ -8,16 +12,67 @@ public final class AutoCloseableWrapper<X extends Exception> implements AutoClos
         return new AutoCloseableWrapper<>(closeAction);
     }
 
+    /**
+     * Creates a wrapper that reports the duration and outcome of the close action to {@code listener}.
+     */
+    public static <X extends Exception> AutoCloseableWrapper<X> runOnClose(
+            RunnableWithException<? extends X> closeAction,
+            ResourceListener listener
+    ) {
+        return new AutoCloseableWrapper<>(closeAction, listener);
+    }
+
     private final RunnableWithException<? extends X> closeAction;
 
+    private final ResourceListener listener;
+
     public AutoCloseableWrapper(RunnableWithException<? extends X> closeAction) {
+        this(closeAction, null);
+    }
+
+    public AutoCloseableWrapper(RunnableWithException<? extends X> closeAction, ResourceListener listener) {
         this.closeAction = closeAction;
+        this.listener = listener;
     }
 
     @Override
     public final void close() throws X {
         if (closeAction != null) {
+            runCloseAction();
+        }
+    }
+
+    private void runCloseAction() throws X {
+        if (listener == null) {
+            closeAction.run();
+            return;
+        }
+        long start = System.nanoTime();
+        try {
             closeAction.run();
+        } catch (Throwable t) {
+            listener.destructionFailed(this, t, System.nanoTime() - start);
+            throw t;
+        }
+        listener.destroyed(this, System.nanoTime() - start);
+    }
+
+    /**
+     * Runs the close action on {@code executor}, waiting for at most the specified time for it to finish.
+     *
+     * @throws CloseTimeoutException if the action didn't finish in time or the calling thread was interrupted
+     * while waiting, in which case the action is left running; or if the executor rejected the action,
+     * in which case it isn't run.
+     * @throws NullPointerException if {@code unit == null} or {@code executor == null}.
+     */
+    public final void close(long timeout, TimeUnit unit, Executor executor) throws X {
+        Objects.requireNonNull(unit, "unit is null");
+        Objects.requireNonNull(executor, "executor is null");
+        if (closeAction != null) {
+            Throwable throwable = TimedClose.run(this::runCloseAction, executor, unit.toNanos(timeout));
+            if (throwable != null) {
+                throw (X) throwable;
+            }
         }
     }
 
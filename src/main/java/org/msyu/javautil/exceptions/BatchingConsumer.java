@@ -0,0 +1,260 @@
+package org.msyu.javautil.exceptions;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Turns a consumer of batches into a consumer of single items.
+ *
+ * <p>Items are collected into a buffer which is flushed to the batch consumer when it reaches the maximum batch
+ * size, when its oldest item reaches the maximum age, on {@link #flush()} and on {@link #close()}. Batches are
+ * flushed in the order in which they were collected.</p>
+ *
+ * <p>A synchronous consumer flushes batches on the thread that calls {@link #accept(Object)} or {@link #flush()};
+ * the age limit is checked only when items are accepted. The exception thrown by the batch consumer is rethrown
+ * directly from that call.</p>
+ *
+ * <p>An asynchronous consumer flushes batches one at a time on an executor, which also enforces the age limit.
+ * Full batches that are waiting to be flushed are queued; when the queue is full, {@link #accept(Object)} blocks
+ * until a batch is flushed. If the executor rejects a task, the batch is flushed on the calling thread instead.
+ * Exceptions thrown by the batch consumer are collected, and the next call
+ * to {@link #accept(Object)}, {@link #flush()} or {@link #close()} rethrows the exception of the earliest failed
+ * batch with the exceptions of the later failed batches suppressed by it. The items of a failed batch
+ * are not retried. When {@code accept()} rethrows such an exception, its own item has already been accepted:
+ * the exception is about earlier batches only.</p>
+ */
+public final class BatchingConsumer<T, X extends Exception> implements ConsumerWithException<T, X>, ParameterizedAutoCloseable<X> {
+
+    private final ConsumerWithException<? super List<T>, ? extends X> batchConsumer;
+
+    private final int maxBatchSize;
+
+    private final long maxAgeNanos;
+
+    private final ScheduledExecutorService executor;
+
+    private final int maxPendingBatches;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition progress = lock.newCondition();
+
+    private List<T> buffer;
+
+    private long bufferStart;
+
+    private ScheduledFuture<?> ageFlush;
+
+    private final ArrayDeque<List<T>> pending = new ArrayDeque<>();
+
+    private boolean flushing;
+
+    private Throwable failure;
+
+    private boolean closed;
+
+    /**
+     * Creates a synchronous batching consumer.
+     */
+    public BatchingConsumer(
+            ConsumerWithException<? super List<T>, ? extends X> batchConsumer,
+            int maxBatchSize,
+            long maxAge,
+            TimeUnit unit
+    ) {
+        this(batchConsumer, maxBatchSize, maxAge, unit, null, 0);
+    }
+
+    /**
+     * Creates an asynchronous batching consumer, or a synchronous one if {@code executor} is {@code null}.
+     *
+     * @param maxPendingBatches how many full batches may wait to be flushed before {@link #accept(Object)} blocks.
+     *
+     * @throws NullPointerException if {@code batchConsumer} or {@code unit} is {@code null}.
+     * @throws IllegalArgumentException if {@code maxBatchSize <= 0}, {@code maxAge <= 0}
+     * or {@code maxPendingBatches < 0}.
+     */
+    public BatchingConsumer(
+            ConsumerWithException<? super List<T>, ? extends X> batchConsumer,
+            int maxBatchSize,
+            long maxAge,
+            TimeUnit unit,
+            ScheduledExecutorService executor,
+            int maxPendingBatches
+    ) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("max batch size is not positive: " + maxBatchSize);
+        }
+        if (maxAge <= 0) {
+            throw new IllegalArgumentException("max age is not positive: " + maxAge);
+        }
+        if (maxPendingBatches < 0) {
+            throw new IllegalArgumentException("max pending batches is negative: " + maxPendingBatches);
+        }
+        this.batchConsumer = Objects.requireNonNull(batchConsumer, "batch consumer is null");
+        this.maxBatchSize = maxBatchSize;
+        this.maxAgeNanos = Objects.requireNonNull(unit, "unit is null").toNanos(maxAge);
+        this.executor = executor;
+        this.maxPendingBatches = maxPendingBatches;
+        this.buffer = new ArrayList<>(maxBatchSize);
+    }
+
+    @Override
+    public final void accept(T item) throws X {
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("consumer is closed");
+            }
+            if (executor == null) {
+                buffer.add(item);
+                if (buffer.size() == 1) {
+                    bufferStart = System.nanoTime();
+                }
+                if (buffer.size() >= maxBatchSize || System.nanoTime() - bufferStart >= maxAgeNanos) {
+                    batchConsumer.accept(takeBuffer());
+                }
+                return;
+            }
+            while (buffer.size() == maxBatchSize - 1 && pending.size() >= maxPendingBatches && flushing) {
+                progress.awaitUninterruptibly();
+            }
+            buffer.add(item);
+            if (buffer.size() >= maxBatchSize) {
+                enqueueBuffer();
+            } else if (buffer.size() == 1) {
+                bufferStart = System.nanoTime();
+                try {
+                    ageFlush = executor.schedule(this::flushAged, maxAgeNanos, TimeUnit.NANOSECONDS);
+                } catch (RejectedExecutionException e) {
+                    // nothing would enforce the age limit, so don't let the item wait for it
+                    enqueueBuffer();
+                }
+            }
+            rethrowFailure();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Flushes the buffered items and, for an asynchronous consumer, waits until all batches are flushed.
+     */
+    public final void flush() throws X {
+        lock.lock();
+        try {
+            if (executor == null) {
+                if (!buffer.isEmpty()) {
+                    batchConsumer.accept(takeBuffer());
+                }
+                return;
+            }
+            if (!buffer.isEmpty()) {
+                enqueueBuffer();
+            }
+            while (flushing) {
+                progress.awaitUninterruptibly();
+            }
+            rethrowFailure();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Flushes the buffered items; subsequent calls to {@link #accept(Object)} will throw
+     * an {@link IllegalStateException}.
+     */
+    @Override
+    public final void close() throws X {
+        lock.lock();
+        try {
+            closed = true;
+            flush();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private List<T> takeBuffer() {
+        List<T> batch = buffer;
+        buffer = new ArrayList<>(maxBatchSize);
+        if (ageFlush != null) {
+            ageFlush.cancel(false);
+            ageFlush = null;
+        }
+        return batch;
+    }
+
+    private void enqueueBuffer() {
+        pending.add(takeBuffer());
+        if (!flushing) {
+            flushing = true;
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                drain();
+            }
+        }
+    }
+
+    private void flushAged() {
+        lock.lock();
+        try {
+            if (!buffer.isEmpty() && System.nanoTime() - bufferStart >= maxAgeNanos) {
+                enqueueBuffer();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            List<T> batch;
+            lock.lock();
+            try {
+                batch = pending.poll();
+                if (batch == null) {
+                    flushing = false;
+                    progress.signalAll();
+                    return;
+                }
+                progress.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            try {
+                batchConsumer.accept(batch);
+            } catch (Throwable t) {
+                lock.lock();
+                try {
+                    if (failure == null) {
+                        failure = t;
+                    } else {
+                        failure.addSuppressed(t);
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+
+    private void rethrowFailure() throws X {
+        Throwable throwable = failure;
+        if (throwable != null) {
+            failure = null;
+            throw SneakyThrow.rethrow(throwable);
+        }
+    }
+
+}
@@ -0,0 +1,21 @@
+package org.msyu.javautil.exceptions;
+
+/**
+ * A {@link SupplierWithException} specialized for a {@code boolean} output.
+ */
+@FunctionalInterface
+public interface BooleanSupplierWithException<X extends Exception> {
+
+    boolean getAsBoolean() throws X;
+
+    default SupplierWithException<Boolean, X> boxed() {
+        return this::getAsBoolean;
+    }
+
+    static <X extends Exception> BooleanSupplierWithException<X> unboxed(
+            SupplierWithException<Boolean, ? extends X> supplier
+    ) {
+        return supplier::get;
+    }
+
+}
@@ -0,0 +1,234 @@
+package org.msyu.javautil.exceptions;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closes many objects at once, with bounded exception bookkeeping.
+ *
+ * <p>All objects are closed even if some of them fail; {@code null} objects are skipped. The first exception is
+ * rethrown, and up to {@linkplain #withMaxSuppressed(int) a set amount} of the subsequent ones are suppressed by it.
+ * If more exceptions were thrown, a {@link DroppedExceptionsSummary} with their counts is suppressed last.
+ * In the parallel mode, "first" means the first one to be recorded.</p>
+ *
+ * <p>A {@code BulkClose} is an immutable, reusable description of how to close things:
+ * sequentially on the calling thread or in parallel on an executor, and optionally no faster than a set rate.</p>
+ */
+public final class BulkClose {
+
+    private static final int DEFAULT_MAX_SUPPRESSED = 100;
+
+    private static final BulkClose SEQUENTIAL = new BulkClose(null, 1, 0, DEFAULT_MAX_SUPPRESSED);
+
+    private final Executor executor;
+
+    private final int parallelism;
+
+    /**
+     * The minimum interval between the starts of two destructors, or {@code 0} for no limit.
+     */
+    private final long intervalNanos;
+
+    private final int maxSuppressed;
+
+    private BulkClose(Executor executor, int parallelism, long intervalNanos, int maxSuppressed) {
+        this.executor = executor;
+        this.parallelism = parallelism;
+        this.intervalNanos = intervalNanos;
+        this.maxSuppressed = maxSuppressed;
+    }
+
+    /**
+     * @return a policy that closes objects one by one on the calling thread.
+     */
+    public static BulkClose sequential() {
+        return SEQUENTIAL;
+    }
+
+    /**
+     * @return a policy that closes objects on the calling thread and {@code parallelism - 1} tasks submitted
+     * to {@code executor}. If the executor rejects a task, it's run on the calling thread.
+     *
+     * @throws IllegalArgumentException if {@code parallelism <= 0}.
+     */
+    public static BulkClose parallel(Executor executor, int parallelism) {
+        Objects.requireNonNull(executor, "executor is null");
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism is not positive: " + parallelism);
+        }
+        return new BulkClose(executor, parallelism, 0, DEFAULT_MAX_SUPPRESSED);
+    }
+
+    /**
+     * @return a copy of this policy that starts at most {@code closesPerSecond} destructors per second,
+     * across all threads.
+     *
+     * @throws IllegalArgumentException if {@code closesPerSecond} is not positive.
+     */
+    public final BulkClose withRateLimit(double closesPerSecond) {
+        if (!(closesPerSecond > 0)) {
+            throw new IllegalArgumentException("rate is not positive: " + closesPerSecond);
+        }
+        return new BulkClose(executor, parallelism, (long) (TimeUnit.SECONDS.toNanos(1) / closesPerSecond), maxSuppressed);
+    }
+
+    /**
+     * @return a copy of this policy that records at most {@code maxSuppressed} suppressed exceptions
+     * (100 by default).
+     *
+     * @throws IllegalArgumentException if {@code maxSuppressed < 0}.
+     */
+    public final BulkClose withMaxSuppressed(int maxSuppressed) {
+        if (maxSuppressed < 0) {
+            throw new IllegalArgumentException("max suppressed is negative: " + maxSuppressed);
+        }
+        return new BulkClose(executor, parallelism, intervalNanos, maxSuppressed);
+    }
+
+    public final void closeAll(Iterable<? extends AutoCloseable> closeables) throws Exception {
+        closeAll(closeables, AutoCloseable::close);
+    }
+
+    public final void closeAll(AutoCloseable... closeables) throws Exception {
+        closeAll(Arrays.asList(closeables), AutoCloseable::close);
+    }
+
+    public final <T, C extends Exception> void closeAll(T[] objects, ConsumerWithException<? super T, ? extends C> destructor) throws C {
+        closeAll(Arrays.asList(objects), destructor);
+    }
+
+    @SuppressWarnings("unchecked")
+    public final <T, C extends Exception> void closeAll(
+            Iterable<? extends T> objects,
+            ConsumerWithException<? super T, ? extends C> destructor
+    ) throws C {
+        Objects.requireNonNull(destructor, "destructor is null");
+        Run<T> run = new Run<>(objects.iterator(), destructor);
+        if (executor == null || parallelism == 1) {
+            run.work();
+        } else {
+            runParallel(run);
+        }
+        Throwable throwable = run.finish();
+        if (throwable != null) {
+            throw (C) throwable;
+        }
+    }
+
+    private void runParallel(Run<?> run) {
+        CountDownLatch latch = new CountDownLatch(parallelism - 1);
+        Runnable task = () -> {
+            try {
+                run.work();
+            } finally {
+                latch.countDown();
+            }
+        };
+        for (int i = 1; i < parallelism; ++i) {
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException e) {
+                task.run();
+            }
+        }
+        run.work();
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private final class Run<T> {
+
+        private final Iterator<? extends T> iterator;
+
+        private final ConsumerWithException<? super T, ?> destructor;
+
+        private final SuppressionCollector collector = new SuppressionCollector(maxSuppressed);
+
+        private final AtomicLong nextStart = new AtomicLong(System.nanoTime());
+
+        private Throwable throwable;
+
+        private Run(Iterator<? extends T> iterator, ConsumerWithException<? super T, ?> destructor) {
+            this.iterator = iterator;
+            this.destructor = destructor;
+        }
+
+        private void work() {
+            while (true) {
+                T object;
+                synchronized (iterator) {
+                    if (!iterator.hasNext()) {
+                        return;
+                    }
+                    object = iterator.next();
+                }
+                if (object == null) {
+                    continue;
+                }
+                if (intervalNanos != 0) {
+                    awaitTurn();
+                }
+                try {
+                    destructor.accept(object);
+                } catch (Throwable t) {
+                    record(t);
+                }
+            }
+        }
+
+        private void awaitTurn() {
+            long start;
+            while (true) {
+                long next = nextStart.get();
+                long now = System.nanoTime();
+                // after a stall, start spacing from now instead of catching up with back-to-back closes
+                start = next - now > 0 ? next : now;
+                if (nextStart.compareAndSet(next, start + intervalNanos)) {
+                    break;
+                }
+            }
+            long delay = start - System.nanoTime();
+            if (delay > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(delay);
+                } catch (InterruptedException e) {
+                    // closing must go on, so give up on the rate limit instead
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        private synchronized void record(Throwable t) {
+            if (throwable == null) {
+                throwable = t;
+            } else {
+                collector.add(t);
+            }
+        }
+
+        private synchronized Throwable finish() {
+            if (throwable != null) {
+                collector.attachTo(throwable);
+            }
+            return throwable;
+        }
+
+    }
+
+}
@@ -0,0 +1,127 @@
+package org.msyu.javautil.exceptions;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Stops calling failing code for a while after too many consecutive failures.
+ *
+ * <p>While the circuit is closed, calls go through, and failures that match the predicate are counted; a successful
+ * call resets the count. When the count reaches the threshold, the circuit opens, and calls fail immediately with
+ * a {@link CircuitBreakerOpenException}. After the open duration passes, the circuit becomes half-open: a single
+ * trial call goes through, and the circuit closes if it succeeds or opens again if it fails.</p>
+ *
+ * <p>The state is kept in atomic variables without locking. While the circuit is closed and calls succeed,
+ * the breaker only reads shared state.</p>
+ */
+public final class CircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private static final long CLOSED = Long.MIN_VALUE;
+
+    private final int failureThreshold;
+
+    private final long openNanos;
+
+    private final Predicate<? super Throwable> failurePredicate;
+
+    private final AtomicInteger failures = new AtomicInteger();
+
+    /**
+     * Either {@link #CLOSED}, or the {@link System#nanoTime()} at which the next trial call may go through.
+     */
+    private final AtomicLong openUntil = new AtomicLong(CLOSED);
+
+    /**
+     * Creates a breaker that counts all exceptions as failures.
+     */
+    public CircuitBreaker(int failureThreshold, long openDuration, TimeUnit unit) {
+        this(failureThreshold, openDuration, unit, t -> true);
+    }
+
+    /**
+     * @param failurePredicate decides which exceptions count as failures; the others count as successes.
+     *
+     * @throws IllegalArgumentException if {@code failureThreshold <= 0} or {@code openDuration <= 0}.
+     */
+    public CircuitBreaker(int failureThreshold, long openDuration, TimeUnit unit, Predicate<? super Throwable> failurePredicate) {
+        if (failureThreshold <= 0) {
+            throw new IllegalArgumentException("failure threshold is not positive: " + failureThreshold);
+        }
+        if (openDuration <= 0) {
+            throw new IllegalArgumentException("open duration is not positive: " + openDuration);
+        }
+        this.failureThreshold = failureThreshold;
+        this.openNanos = unit.toNanos(openDuration);
+        this.failurePredicate = Objects.requireNonNull(failurePredicate, "failure predicate is null");
+    }
+
+    public final State getState() {
+        long until = openUntil.get();
+        if (until == CLOSED) {
+            return State.CLOSED;
+        }
+        return System.nanoTime() - until >= 0 ? State.HALF_OPEN : State.OPEN;
+    }
+
+    /**
+     * Calls the supplier if the circuit is closed, or makes a trial call if it's half-open.
+     *
+     * @throws CircuitBreakerOpenException if the circuit is open, or if another trial call is in progress.
+     */
+    public final <O, X extends Exception> O call(SupplierWithException<? extends O, ? extends X> supplier) throws X {
+        long until = openUntil.get();
+        if (until == CLOSED) {
+            O output;
+            try {
+                output = supplier.get();
+            } catch (Throwable t) {
+                if (!failurePredicate.test(t)) {
+                    resetFailures();
+                } else if (failures.incrementAndGet() >= failureThreshold) {
+                    openUntil.compareAndSet(CLOSED, System.nanoTime() + openNanos);
+                }
+                throw t;
+            }
+            resetFailures();
+            return output;
+        }
+        long now = System.nanoTime();
+        if (now - until < 0 || !openUntil.compareAndSet(until, now + openNanos)) {
+            throw new CircuitBreakerOpenException("circuit is open");
+        }
+        O output;
+        try {
+            output = supplier.get();
+        } catch (Throwable t) {
+            if (failurePredicate.test(t)) {
+                openUntil.set(System.nanoTime() + openNanos);
+            } else {
+                close();
+            }
+            throw t;
+        }
+        close();
+        return output;
+    }
+
+    private void resetFailures() {
+        if (failures.get() != 0) {
+            failures.set(0);
+        }
+    }
+
+    private void close() {
+        failures.set(0);
+        openUntil.set(CLOSED);
+    }
+
+}
@@ -0,0 +1,14 @@
+package org.msyu.javautil.exceptions;
+
+/**
+ * Thrown by a {@link CircuitBreaker} instead of calling the protected code while the circuit is open.
+ */
+public class CircuitBreakerOpenException extends StacklessRuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public CircuitBreakerOpenException(String message) {
+        super(message);
+    }
+
+}
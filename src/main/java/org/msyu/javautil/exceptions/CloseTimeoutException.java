@@ -0,0 +1,20 @@
+package org.msyu.javautil.exceptions;
+
+/**
+ * Thrown or suppressed in place of a destructor's outcome when the destructor doesn't finish within its time budget.
+ * The destructor itself may still be running. If the executor rejected the destructor, it wasn't run at all, and
+ * the {@link java.util.concurrent.RejectedExecutionException} is the cause.
+ */
+public class CloseTimeoutException extends StacklessRuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public CloseTimeoutException(String message) {
+        super(message);
+    }
+
+    public CloseTimeoutException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+}
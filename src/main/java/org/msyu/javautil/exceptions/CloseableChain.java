@@ -1,27 +1,58 @@
 package org.msyu.javautil.exceptions;
 
 import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 public final class CloseableChain<I, C extends Exception> {
 
     public static <C extends Exception> CloseableChain<Void, C> newCloseableChain() {
-        return new CloseableChain<>(null, null, null);
+        return new CloseableChain<>(null, LeakDetector.newProbe(), null, false, null);
+    }
+
+    /**
+     * Creates a chain that reports the construction and destruction of all its links to {@code listener}.
+     *
+     * @throws NullPointerException if {@code listener == null}.
+     */
+    public static <C extends Exception> CloseableChain<Void, C> newCloseableChain(ResourceListener listener) {
+        Objects.requireNonNull(listener, "listener is null");
+        return new CloseableChain<>(null, LeakDetector.newProbe(), null, false, listener);
     }
 
     private final I output;
 
+    /**
+     * For the root of a chain, this is the {@link LeakDetector} probe, or {@code null} if the chain isn't sampled.
+     */
     private final ConsumerWithException<? super I, ? extends C> destructor;
 
     private final CloseableChain<?, ? extends C> prev;
 
+    /**
+     * Whether this link may be closed concurrently with {@link #prev}.
+     */
+    private final boolean independent;
+
+    /**
+     * Inherited from {@link #prev}, so that all links of a chain share the listener of its root.
+     */
+    private final ResourceListener listener;
+
     private CloseableChain(
             I output,
             ConsumerWithException<? super I, ? extends C> destructor,
-            CloseableChain<?, ? extends C> prev
+            CloseableChain<?, ? extends C> prev,
+            boolean independent,
+            ResourceListener listener
     ) {
         this.output = output;
         this.destructor = destructor;
         this.prev = prev;
+        this.independent = independent;
+        this.listener = listener;
     }
 
     public final <O, X extends Exception>
@@ -29,14 +60,50 @@ public final class CloseableChain<I, C extends Exception> {
             FunctionWithException<? super I, O, X> constructor,
             ConsumerWithException<? super O, ? extends C> destructor
     ) throws X {
+        return link(constructor, destructor, false);
+    }
+
+    /**
+     * Same as {@link #chain(FunctionWithException, ConsumerWithException) chain()}, but the new link is marked as
+     * independent of this one: {@link #closeParallel(CloseableChain, Executor) closeParallel()} may run their
+     * destructors concurrently.
+     *
+     * <p>A run of consecutive links, each independent of the previous one, forms a group.
+     * For example, in {@code newCloseableChain().chain(a).chainIndependent(b).chainIndependent(c).chain(d)}
+     * the links {@code a}, {@code b} and {@code c} form a group, and {@code d} forms a group of its own.</p>
+     */
+    public final <O, X extends Exception>
+    CloseableChain<O, C> chainIndependent(
+            FunctionWithException<? super I, O, X> constructor,
+            ConsumerWithException<? super O, ? extends C> destructor
+    ) throws X {
+        return link(constructor, destructor, true);
+    }
+
+    private <O, X extends Exception>
+    CloseableChain<O, C> link(
+            FunctionWithException<? super I, O, X> constructor,
+            ConsumerWithException<? super O, ? extends C> destructor,
+            boolean independent
+    ) throws X {
+        if (prev == null) {
+            LeakDetector.armed(this.destructor);
+        }
+        long start = listener == null ? 0 : System.nanoTime();
         O newOutput;
         try {
             newOutput = constructor.apply(output);
         } catch (Throwable x) {
+            if (listener != null) {
+                listener.constructionFailed(x, System.nanoTime() - start);
+            }
             close(this, x);
             throw x;
         }
-        return new CloseableChain<>(newOutput, destructor, this);
+        if (listener != null) {
+            listener.constructed(newOutput, System.nanoTime() - start);
+        }
+        return new CloseableChain<>(newOutput, destructor, this, independent, listener);
     }
 
     public final <X extends Exception>
@@ -44,13 +111,23 @@ public final class CloseableChain<I, C extends Exception> {
             ConsumerWithException<? super I, X> constructor,
             ConsumerWithException<? super I, ? extends C> destructor
     ) throws X {
+        if (prev == null) {
+            LeakDetector.armed(this.destructor);
+        }
+        long start = listener == null ? 0 : System.nanoTime();
         try {
             constructor.accept(output);
         } catch (Throwable x) {
+            if (listener != null) {
+                listener.constructionFailed(x, System.nanoTime() - start);
+            }
             close(this, x);
             throw x;
         }
-        return new CloseableChain<>(output, destructor, this);
+        if (listener != null) {
+            listener.constructed(output, System.nanoTime() - start);
+        }
+        return new CloseableChain<>(output, destructor, this, false, listener);
     }
 
     public final I getOutput() {
@@ -58,7 +135,46 @@ public final class CloseableChain<I, C extends Exception> {
     }
 
     private void closeThis() throws C {
-        destructor.accept(output);
+        if (listener == null) {
+            destructor.accept(output);
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            destructor.accept(output);
+        } catch (Throwable t) {
+            listener.destructionFailed(output, t, System.nanoTime() - start);
+            throw t;
+        }
+        listener.destroyed(output, System.nanoTime() - start);
+    }
+
+    /**
+     * @return the exception thrown by the destructor, or {@code null} if there was none.
+     */
+    private Throwable closeThisCatching() {
+        if (output != null && destructor != null) {
+            try {
+                closeThis();
+            } catch (Throwable t) {
+                return t;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return {@code t} if {@code throwable == null}; otherwise {@code throwable}, after suppressing {@code t} with it.
+     */
+    private static Throwable suppress(Throwable throwable, Throwable t, ResourceListener listener) {
+        if (throwable == null) {
+            return t;
+        }
+        throwable.addSuppressed(t);
+        if (listener != null) {
+            listener.suppressed(throwable, t);
+        }
+        return throwable;
     }
 
     /**
@@ -71,8 +187,33 @@ public final class CloseableChain<I, C extends Exception> {
                 try {
                     chain.closeThis();
                 } catch (Throwable t) {
-                    suppressor.addSuppressed(t);
+                    suppress(suppressor, t, chain.listener);
                 }
+            } else if (chain.prev == null) {
+                LeakDetector.closed(chain.destructor);
+            }
+            chain = chain.prev;
+        }
+    }
+
+    /**
+     * Closes the chain like {@link #close(CloseableChain, Throwable)}, but gathers the exceptions in {@code collector}
+     * instead of suppressing them right away. The chain's listener is told about each stored exception
+     * when the collector attaches it.
+     *
+     * @throws NullPointerException if {@code collector == null}.
+     */
+    public static void close(CloseableChain<?, ?> chain, SuppressionCollector collector) {
+        Objects.requireNonNull(collector, "collector is null");
+        while (chain != null) {
+            if (chain.output != null && chain.destructor != null) {
+                try {
+                    chain.closeThis();
+                } catch (Throwable t) {
+                    collector.add(t, chain.listener);
+                }
+            } else if (chain.prev == null) {
+                LeakDetector.closed(chain.destructor);
             }
             chain = chain.prev;
         }
@@ -86,12 +227,10 @@ public final class CloseableChain<I, C extends Exception> {
                 try {
                     link.closeThis();
                 } catch (Throwable t) {
-                    if (throwable == null) {
-                        throwable = t;
-                    } else {
-                        throwable.addSuppressed(t);
-                    }
+                    throwable = suppress(throwable, t, link.listener);
                 }
+            } else if (link.prev == null) {
+                LeakDetector.closed(link.destructor);
             }
             link = link.prev;
         }
@@ -100,4 +239,188 @@ public final class CloseableChain<I, C extends Exception> {
         }
     }
 
+    /**
+     * Closes the chain like {@link #close(CloseableChain, Throwable)} if {@code throwable != null},
+     * or like {@link #close(CloseableChain)} otherwise.
+     *
+     * @return {@code throwable}, or the exception that {@code close(chain)} would throw.
+     */
+    static Throwable closeCatching(CloseableChain<?, ?> chain, Throwable throwable) {
+        if (throwable != null) {
+            close(chain, throwable);
+            return throwable;
+        }
+        try {
+            close(chain);
+            return null;
+        } catch (Throwable t) {
+            return t;
+        }
+    }
+
+    /**
+     * Closes the chain like {@link #close(CloseableChain, Throwable)}, but runs the destructors of each group of
+     * {@linkplain #chainIndependent(FunctionWithException, ConsumerWithException) independent} links
+     * concurrently on {@code executor}.
+     *
+     * @throws NullPointerException if {@code suppressor == null} or {@code executor == null}.
+     *
+     * @see #closeParallel(CloseableChain, Executor)
+     */
+    public static void closeParallel(CloseableChain<?, ?> chain, Throwable suppressor, Executor executor) {
+        Objects.requireNonNull(suppressor, "suppressor is null");
+        closeGroups(chain, suppressor, executor);
+    }
+
+    /**
+     * Closes the chain like {@link #close(CloseableChain)}, but runs the destructors of each group of
+     * {@linkplain #chainIndependent(FunctionWithException, ConsumerWithException) independent} links
+     * concurrently on {@code executor}.
+     *
+     * <p>The groups are still closed one after another in reverse order; the calling thread closes one link of
+     * each group itself and waits for the rest. The thrown exception and its suppressed list are the same as
+     * {@code close(chain)} would produce for the same destructor failures, regardless of the order in which
+     * the destructors actually finish. If the executor rejects a destructor, it's run on the calling thread.</p>
+     *
+     * @throws NullPointerException if {@code executor == null}.
+     */
+    public static <C extends Exception> void closeParallel(CloseableChain<?, C> chain, Executor executor) throws C {
+        Throwable throwable = closeGroups(chain, null, executor);
+        if (throwable != null) {
+            throw (C) throwable;
+        }
+    }
+
+    private static Throwable closeGroups(CloseableChain<?, ?> chain, Throwable throwable, Executor executor) {
+        Objects.requireNonNull(executor, "executor is null");
+        while (chain != null) {
+            int groupSize = 1;
+            CloseableChain<?, ?> last = chain;
+            while (last.independent) {
+                last = last.prev;
+                ++groupSize;
+            }
+            for (Throwable t : closeGroup(chain, groupSize, executor)) {
+                if (t != null) {
+                    throwable = suppress(throwable, t, chain.listener);
+                }
+            }
+            if (last.prev == null) {
+                LeakDetector.closed(last.destructor);
+            }
+            chain = last.prev;
+        }
+        return throwable;
+    }
+
+    /**
+     * @return the exceptions thrown by the destructors of the group, in the order of sequential closing.
+     */
+    private static Throwable[] closeGroup(CloseableChain<?, ?> first, int groupSize, Executor executor) {
+        Throwable[] failures = new Throwable[groupSize];
+        CountDownLatch latch = new CountDownLatch(groupSize - 1);
+        CloseableChain<?, ?> link = first;
+        for (int i = 0; i < groupSize - 1; ++i, link = link.prev) {
+            CloseableChain<?, ?> current = link;
+            int index = i;
+            Runnable task = () -> {
+                try {
+                    failures[index] = current.closeThisCatching();
+                } finally {
+                    latch.countDown();
+                }
+            };
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException e) {
+                task.run();
+            }
+        }
+        failures[groupSize - 1] = link.closeThisCatching();
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        return failures;
+    }
+
+    /**
+     * Closes the chain like {@link #close(CloseableChain, Throwable)}, but with time budgets for the destructors.
+     *
+     * @throws NullPointerException if {@code suppressor}, {@code unit} or {@code executor} is {@code null}.
+     *
+     * @see #closeWithTimeout(CloseableChain, long, long, TimeUnit, Executor)
+     */
+    public static void closeWithTimeout(
+            CloseableChain<?, ?> chain,
+            Throwable suppressor,
+            long linkTimeout,
+            long chainTimeout,
+            TimeUnit unit,
+            Executor executor
+    ) {
+        Objects.requireNonNull(suppressor, "suppressor is null");
+        closeTimed(chain, suppressor, linkTimeout, chainTimeout, unit, executor);
+    }
+
+    /**
+     * Closes the chain like {@link #close(CloseableChain)}, but with time budgets for the destructors.
+     *
+     * <p>Each destructor is run on {@code executor}, and the calling thread waits for it for at most
+     * {@code linkTimeout}, and never past {@code chainTimeout} since the start of the closing.
+     * A destructor that doesn't finish in time (or if the calling thread is interrupted while waiting) is
+     * left running, and is treated as if it threw a {@link CloseTimeoutException}; the remaining links are
+     * still closed. Once the chain deadline has passed, the remaining destructors are still submitted to
+     * the executor, but aren't waited for, and so are reported as timed out unless they've finished already.
+     * A destructor that the executor rejects isn't run, and is reported as timed out too.</p>
+     *
+     * @throws NullPointerException if {@code unit == null} or {@code executor == null}.
+     */
+    public static <C extends Exception> void closeWithTimeout(
+            CloseableChain<?, C> chain,
+            long linkTimeout,
+            long chainTimeout,
+            TimeUnit unit,
+            Executor executor
+    ) throws C {
+        Throwable throwable = closeTimed(chain, null, linkTimeout, chainTimeout, unit, executor);
+        if (throwable != null) {
+            throw (C) throwable;
+        }
+    }
+
+    private static Throwable closeTimed(
+            CloseableChain<?, ?> chain,
+            Throwable throwable,
+            long linkTimeout,
+            long chainTimeout,
+            TimeUnit unit,
+            Executor executor
+    ) {
+        Objects.requireNonNull(unit, "unit is null");
+        Objects.requireNonNull(executor, "executor is null");
+        long linkNanos = unit.toNanos(linkTimeout);
+        long deadline = System.nanoTime() + unit.toNanos(chainTimeout);
+        while (chain != null) {
+            if (chain.output != null && chain.destructor != null) {
+                Throwable t = TimedClose.run(chain::closeThis, executor, Math.min(linkNanos, deadline - System.nanoTime()));
+                if (t != null) {
+                    throwable = suppress(throwable, t, chain.listener);
+                }
+            } else if (chain.prev == null) {
+                LeakDetector.closed(chain.destructor);
+            }
+            chain = chain.prev;
+        }
+        return throwable;
+    }
+
 }
@@ -0,0 +1,205 @@
+package org.msyu.javautil.exceptions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A fixed sequence of construction and destruction steps that can be run many times,
+ * each time producing the same links that the equivalent {@link CloseableChain} would.
+ *
+ * <p>A template is built once with a {@link Builder}, which type-checks each step against the output of
+ * the previous one. The steps are then kept in flat arrays, so that opening a template walks an array instead of
+ * building a linked list of nodes with wildcard-typed pointers, and allocates only the array of outputs
+ * (or nothing at all, when opened into a reused {@link MutableCloseableChain}).</p>
+ *
+ * <p>The exception handling is the same as in {@link CloseableChain}: if a constructor fails, the links that were
+ * already constructed are closed in reverse order with their exceptions suppressed by the constructor's exception;
+ * closing an opened template rethrows the first destructor exception and suppresses the subsequent ones.</p>
+ *
+ * <p>Templates are immutable and thread-safe.</p>
+ */
+public final class CloseableChainTemplate<I, O, X extends Exception, C extends Exception> {
+
+    public static <I, X extends Exception, C extends Exception> Builder<I, I, X, C> builder() {
+        return new Builder<>();
+    }
+
+    private final FunctionWithException<Object, Object, ?>[] constructors;
+
+    private final ConsumerWithException<Object, ? extends C>[] destructors;
+
+    private CloseableChainTemplate(
+            FunctionWithException<Object, Object, ?>[] constructors,
+            ConsumerWithException<Object, ? extends C>[] destructors
+    ) {
+        this.constructors = constructors;
+        this.destructors = destructors;
+    }
+
+    /**
+     * @return the amount of links that this template produces.
+     */
+    public final int size() {
+        return constructors.length;
+    }
+
+    /**
+     * Runs the constructors, starting with {@code input}.
+     */
+    public final Instance<O, C> open(I input) throws X {
+        Object[] outputs = new Object[constructors.length];
+        Object output = input;
+        for (int i = 0; i < constructors.length; ++i) {
+            try {
+                output = constructors[i].apply(output);
+            } catch (Throwable x) {
+                close(destructors, outputs, i, x);
+                throw SneakyThrow.rethrow(x);
+            }
+            outputs[i] = output;
+        }
+        return new Instance<>(destructors, outputs);
+    }
+
+    /**
+     * Runs the constructors, starting with {@code input}, and appends the links to {@code chain}.
+     * Like {@link MutableCloseableChain#chain(Object, FunctionWithException, ConsumerWithException)}, a failed
+     * constructor closes the whole chain, including the links that were in it before.
+     *
+     * @return the output of the last link.
+     */
+    @SuppressWarnings("unchecked")
+    public final O open(I input, MutableCloseableChain<C> chain) throws X {
+        Object output = input;
+        for (int i = 0; i < constructors.length; ++i) {
+            try {
+                output = constructors[i].apply(output);
+            } catch (Throwable x) {
+                chain.close(x);
+                throw SneakyThrow.rethrow(x);
+            }
+            chain.append(output, destructors[i]);
+        }
+        return (O) output;
+    }
+
+    /**
+     * Closes the links from {@code count - 1} down to {@code 0}.
+     *
+     * @return {@code throwable}, or the first destructor exception if {@code throwable == null}.
+     */
+    private static Throwable close(ConsumerWithException<Object, ?>[] destructors, Object[] outputs, int count, Throwable throwable) {
+        for (int i = count - 1; i >= 0; --i) {
+            Object output = outputs[i];
+            ConsumerWithException<Object, ?> destructor = destructors[i];
+            outputs[i] = null;
+            if (output != null && destructor != null) {
+                try {
+                    destructor.accept(output);
+                } catch (Throwable t) {
+                    if (throwable == null) {
+                        throwable = t;
+                    } else {
+                        throwable.addSuppressed(t);
+                    }
+                }
+            }
+        }
+        return throwable;
+    }
+
+    /**
+     * The links produced by {@link #open(Object)}.
+     *
+     * <p>Closing an instance a second time does nothing. Instances are not thread-safe.</p>
+     */
+    public static final class Instance<O, C extends Exception> implements ParameterizedAutoCloseable<C> {
+
+        private final ConsumerWithException<Object, ?>[] destructors;
+
+        private final Object[] outputs;
+
+        private Instance(ConsumerWithException<Object, ?>[] destructors, Object[] outputs) {
+            this.destructors = destructors;
+            this.outputs = outputs;
+        }
+
+        /**
+         * @return the output of the last link, or {@code null} if the instance is closed.
+         */
+        @SuppressWarnings("unchecked")
+        public final O getOutput() {
+            return outputs.length == 0 ? null : (O) outputs[outputs.length - 1];
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public final void close() throws C {
+            Throwable throwable = CloseableChainTemplate.close(destructors, outputs, outputs.length, null);
+            if (throwable != null) {
+                throw (C) throwable;
+            }
+        }
+
+        /**
+         * @throws NullPointerException if {@code suppressor == null}.
+         */
+        public final void close(Throwable suppressor) {
+            Objects.requireNonNull(suppressor, "suppressor is null");
+            CloseableChainTemplate.close(destructors, outputs, outputs.length, suppressor);
+        }
+
+    }
+
+    /**
+     * Accumulates the steps of a template. Each step method returns this same builder, retyped for the next step,
+     * so previously returned references shouldn't be used.
+     */
+    public static final class Builder<I, O, X extends Exception, C extends Exception> {
+
+        private final List<FunctionWithException<Object, Object, ?>> constructors = new ArrayList<>();
+
+        private final List<ConsumerWithException<Object, ? extends C>> destructors = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        @SuppressWarnings("unchecked")
+        public final <P> Builder<I, P, X, C> then(
+                FunctionWithException<? super O, P, ? extends X> constructor,
+                ConsumerWithException<? super P, ? extends C> destructor
+        ) {
+            Objects.requireNonNull(constructor, "constructor is null");
+            constructors.add((FunctionWithException<Object, Object, ?>) constructor);
+            destructors.add((ConsumerWithException<Object, ? extends C>) destructor);
+            return (Builder<I, P, X, C>) this;
+        }
+
+        public final Builder<I, O, X, C> thenEffects(
+                ConsumerWithException<? super O, ? extends X> constructor,
+                ConsumerWithException<? super O, ? extends C> destructor
+        ) {
+            Objects.requireNonNull(constructor, "constructor is null");
+            return then(
+                    input -> {
+                        constructor.accept(input);
+                        return input;
+                    },
+                    destructor
+            );
+        }
+
+        public final CloseableChainTemplate<I, O, X, C> build() {
+            @SuppressWarnings("unchecked")
+            FunctionWithException<Object, Object, ?>[] constructorArray =
+                    constructors.toArray((FunctionWithException<Object, Object, ?>[]) new FunctionWithException<?, ?, ?>[0]);
+            @SuppressWarnings("unchecked")
+            ConsumerWithException<Object, ? extends C>[] destructorArray =
+                    destructors.toArray((ConsumerWithException<Object, ? extends C>[]) new ConsumerWithException<?, ?>[0]);
+            return new CloseableChainTemplate<>(constructorArray, destructorArray);
+        }
+
+    }
+
+}
@@ -0,0 +1,181 @@
+package org.msyu.javautil.exceptions;
+
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A Reactive Streams subscriber that passes each item to a {@link ConsumerWithException}, and lets a thread
+ * {@linkplain #await() wait} for the outcome with the consumer's original exception type.
+ *
+ * <p>The subscriber requests {@code prefetch} items up front and tops the demand up in batches of half of that,
+ * so the publisher never has more than {@code prefetch} outstanding items. If the consumer throws, the subscription
+ * is cancelled, and the exception becomes the outcome of the stream. The outcome may also be a failure signalled by
+ * upstream, or a {@link CancellationException} if the subscriber is {@linkplain #cancel() cancelled}.</p>
+ *
+ * <p>Like {@link FunctionProcessor}, the subscriber may own a {@link CloseableChain} of resources, which is closed
+ * when the stream terminates; destructor exceptions are suppressed by the stream's failure, or become the outcome
+ * if the stream completed normally. If the subscriber is cancelled while the consumer is running, the chain is
+ * closed by the signalling thread once the consumer returns.</p>
+ */
+public final class ConsumerSubscriber<T, X extends Exception> implements Subscriber<T> {
+
+    private static final int ACTIVE = 1;
+
+    private static final int CANCELLED = 2;
+
+    private final ConsumerWithException<? super T, ? extends X> consumer;
+
+    private final int prefetch;
+
+    private final int batch;
+
+    private final CloseableChain<?, ?> resources;
+
+    private final CountDownLatch finished = new CountDownLatch(1);
+
+    private volatile Subscription subscription;
+
+    private volatile boolean done;
+
+    /**
+     * The {@link #ACTIVE} bit is set while {@link #onNext(Object)} runs, the {@link #CANCELLED} bit once
+     * {@link #cancel()} is called. Whichever of them finds the other one set finishes the stream, so that
+     * the resources are never closed while the consumer is using them.
+     */
+    private final AtomicInteger state = new AtomicInteger();
+
+    private int consumedInBatch;
+
+    private Throwable failure;
+
+    /**
+     * @param prefetch the maximum amount of outstanding items.
+     * @param resources closed when the stream terminates; may be {@code null}.
+     *
+     * @throws IllegalArgumentException if {@code prefetch <= 0}.
+     */
+    public ConsumerSubscriber(
+            ConsumerWithException<? super T, ? extends X> consumer,
+            int prefetch,
+            CloseableChain<?, ?> resources
+    ) {
+        if (prefetch <= 0) {
+            throw new IllegalArgumentException("prefetch is not positive: " + prefetch);
+        }
+        this.consumer = Objects.requireNonNull(consumer, "consumer is null");
+        this.prefetch = prefetch;
+        this.batch = prefetch - prefetch / 2;
+        this.resources = resources;
+    }
+
+    @Override
+    public final void onSubscribe(Subscription subscription) {
+        Objects.requireNonNull(subscription, "subscription is null");
+        if (this.subscription != null || done) {
+            subscription.cancel();
+            return;
+        }
+        this.subscription = subscription;
+        subscription.request(prefetch);
+    }
+
+    @Override
+    public final void onNext(T item) {
+        Objects.requireNonNull(item, "item is null");
+        if (done || !state.compareAndSet(0, ACTIVE)) {
+            return;
+        }
+        try {
+            try {
+                consumer.accept(item);
+            } catch (Throwable t) {
+                subscription.cancel();
+                finish(t);
+                return;
+            }
+            if (++consumedInBatch == batch) {
+                consumedInBatch = 0;
+                subscription.request(batch);
+            }
+        } finally {
+            if (!state.compareAndSet(ACTIVE, 0)) {
+                // cancelled while the item was being consumed
+                finishCancelled();
+            }
+        }
+    }
+
+    @Override
+    public final void onError(Throwable throwable) {
+        finish(Objects.requireNonNull(throwable, "throwable is null"));
+    }
+
+    @Override
+    public final void onComplete() {
+        finish(null);
+    }
+
+    /**
+     * Cancels the subscription; the outcome of the stream becomes a {@link CancellationException}.
+     */
+    public final void cancel() {
+        Subscription s = subscription;
+        if (s != null) {
+            s.cancel();
+        }
+        if ((state.getAndUpdate(x -> x | CANCELLED) & ACTIVE) == 0) {
+            finishCancelled();
+        }
+    }
+
+    private void finishCancelled() {
+        finish(new CancellationException("subscriber was cancelled"));
+    }
+
+    private synchronized void finish(Throwable throwable) {
+        if (done) {
+            return;
+        }
+        done = true;
+        failure = resources == null ? throwable : CloseableChain.closeCatching(resources, throwable);
+        finished.countDown();
+    }
+
+    /**
+     * Waits until the stream terminates.
+     *
+     * @throws X or any other exception that was the outcome of the stream.
+     */
+    public final void await() throws X, InterruptedException {
+        finished.await();
+        rethrowFailure();
+    }
+
+    /**
+     * Waits until the stream terminates, or the timeout passes.
+     *
+     * @return {@code false} if the timeout passed.
+     *
+     * @throws X or any other exception that was the outcome of the stream.
+     */
+    public final boolean await(long timeout, TimeUnit unit) throws X, InterruptedException {
+        if (!finished.await(timeout, unit)) {
+            return false;
+        }
+        rethrowFailure();
+        return true;
+    }
+
+    private synchronized void rethrowFailure() throws X {
+        if (failure != null) {
+            throw SneakyThrow.rethrow(failure);
+        }
+    }
+
+}
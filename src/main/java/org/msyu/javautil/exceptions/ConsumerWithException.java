@@ -1,8 +1,84 @@
 package org.msyu.javautil.exceptions;
 
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
 @FunctionalInterface
 public interface ConsumerWithException<I, X extends Exception> {
 
     void accept(I input) throws X;
 
+    /**
+     * Adapts {@code consumer} to {@link Consumer}, throwing its checked exceptions as is, without declaring them.
+     */
+    static <I> Consumer<I> sneaky(ConsumerWithException<? super I, ?> consumer) {
+        Objects.requireNonNull(consumer, "consumer is null");
+        return input -> {
+            try {
+                consumer.accept(input);
+            } catch (Exception e) {
+                throw SneakyThrow.rethrow(e);
+            }
+        };
+    }
+
+    /**
+     * Adapts {@code consumer} to {@link Consumer},
+     * wrapping its checked exceptions in {@link java.io.UncheckedIOException} if they are {@link java.io.IOException}s,
+     * or in {@link RuntimeException}s otherwise.
+     * Unchecked exceptions are thrown as is.
+     */
+    static <I> Consumer<I> unchecked(ConsumerWithException<? super I, ?> consumer) {
+        return unchecked(consumer, ExceptionTranslation::toUnchecked);
+    }
+
+    /**
+     * Adapts {@code consumer} to {@link Consumer},
+     * translating its checked exceptions with {@code translator}.
+     * Unchecked exceptions are thrown as is.
+     */
+    static <I> Consumer<I> unchecked(
+            ConsumerWithException<? super I, ?> consumer,
+            Function<? super Exception, ? extends RuntimeException> translator
+    ) {
+        Objects.requireNonNull(consumer, "consumer is null");
+        Objects.requireNonNull(translator, "translator is null");
+        return input -> {
+            try {
+                consumer.accept(input);
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw translator.apply(e);
+            }
+        };
+    }
+
+    /**
+     * Returns a consumer that translates the checked exceptions of {@code consumer} with {@code translator}.
+     * Unchecked exceptions, and checked exceptions that aren't instances of {@code type}
+     * (such as ones thrown sneakily), are thrown as is.
+     *
+     * @throws NullPointerException if {@code consumer}, {@code type} or {@code translator} is {@code null}.
+     */
+    static <I, X extends Exception, Y extends Exception> ConsumerWithException<I, Y> mapChecked(
+            ConsumerWithException<? super I, ? extends X> consumer,
+            Class<X> type,
+            Function<? super X, ? extends Y> translator
+    ) {
+        Objects.requireNonNull(consumer, "consumer is null");
+        Objects.requireNonNull(type, "type is null");
+        Objects.requireNonNull(translator, "translator is null");
+        return input -> {
+            try {
+                consumer.accept(input);
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw ExceptionTranslation.translateChecked(e, type, translator);
+            }
+        };
+    }
+
 }
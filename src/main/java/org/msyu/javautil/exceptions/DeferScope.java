@@ -0,0 +1,181 @@
+package org.msyu.javautil.exceptions;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A per-thread stack of deferred cleanup actions, run in reverse order when the innermost open scope is closed.
+ *
+ * <p>Code that opens a scope typically does so in a try-with-resources statement:</p>
+ * <pre>{@code
+ * try (DeferScope<IOException> scope = DeferScope.open()) {
+ *     InputStream in = scope.defer(open(path), InputStream::close);
+ *     handle(in);
+ * }
+ * }</pre>
+ * <p>and any code called from within the scope may add its own cleanups with {@code DeferScope.current().defer(...)}.
+ * Scopes can be nested; closing a scope runs only the cleanups that were deferred since it was opened.
+ * The exception handling is the same as in {@link CloseableChain#close(CloseableChain)}: the first exception
+ * is rethrown after all the cleanups have run, and subsequent ones are suppressed by it.</p>
+ *
+ * <p>Each thread has a single {@code DeferScope} instance, which represents its innermost open scope and is
+ * reused by all scopes opened on that thread. Its arrays are kept between scopes, so once they have grown to fit
+ * the typical amount of cleanups, opening, deferring and closing allocate nothing. An instance must only be used
+ * on its own thread. The exception type is not checked: it's up to the caller to only defer cleanups that throw
+ * what the scope declares.</p>
+ */
+public final class DeferScope<C extends Exception> implements ParameterizedAutoCloseable<C> {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Arrays bigger than this are dropped when the outermost scope is closed, so that a single request
+     * with an unusual amount of cleanups doesn't hold on to the memory forever.
+     */
+    private static final int MAX_RETAINED_CAPACITY = 1024;
+
+    private static final ConsumerWithException<Object, Exception> RUN = action -> ((RunnableWithException<?>) action).run();
+
+    private static final ThreadLocal<DeferScope<?>> SCOPES = ThreadLocal.withInitial(DeferScope::new);
+
+    private Object[] targets = new Object[INITIAL_CAPACITY];
+
+    private ConsumerWithException<Object, ?>[] actions = newActions(INITIAL_CAPACITY);
+
+    private int size;
+
+    private int[] marks = new int[INITIAL_CAPACITY];
+
+    private int depth;
+
+    private DeferScope() {
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ConsumerWithException<Object, ?>[] newActions(int capacity) {
+        return (ConsumerWithException<Object, ?>[]) new ConsumerWithException<?, ?>[capacity];
+    }
+
+    /**
+     * Opens a new scope on the current thread.
+     */
+    @SuppressWarnings("unchecked")
+    public static <C extends Exception> DeferScope<C> open() {
+        DeferScope<C> scope = (DeferScope<C>) SCOPES.get();
+        if (scope.depth == scope.marks.length) {
+            scope.marks = Arrays.copyOf(scope.marks, scope.depth * 2);
+        }
+        scope.marks[scope.depth++] = scope.size;
+        return scope;
+    }
+
+    /**
+     * @return the innermost open scope of the current thread.
+     *
+     * @throws IllegalStateException if there's no open scope.
+     */
+    @SuppressWarnings("unchecked")
+    public static <C extends Exception> DeferScope<C> current() {
+        DeferScope<C> scope = (DeferScope<C>) SCOPES.get();
+        scope.checkOpen();
+        return scope;
+    }
+
+    private void checkOpen() {
+        if (depth == 0) {
+            throw new IllegalStateException("no open scope");
+        }
+    }
+
+    /**
+     * @return the amount of cleanups deferred in the innermost open scope.
+     */
+    public final int size() {
+        return depth == 0 ? 0 : size - marks[depth - 1];
+    }
+
+    /**
+     * Defers the action until this scope is closed.
+     */
+    public final void defer(RunnableWithException<? extends C> action) {
+        push(Objects.requireNonNull(action, "action is null"), RUN);
+    }
+
+    /**
+     * Defers the cleanup of {@code target} until this scope is closed. A {@code null} target is not cleaned up,
+     * like a {@code null} output of a {@link CloseableChain} link.
+     *
+     * @return {@code target}.
+     */
+    @SuppressWarnings("unchecked")
+    public final <T> T defer(T target, ConsumerWithException<? super T, ? extends C> cleanup) {
+        push(target, (ConsumerWithException<Object, ?>) Objects.requireNonNull(cleanup, "cleanup is null"));
+        return target;
+    }
+
+    private void push(Object target, ConsumerWithException<Object, ?> cleanup) {
+        checkOpen();
+        if (size == targets.length) {
+            targets = Arrays.copyOf(targets, size * 2);
+            actions = Arrays.copyOf(actions, size * 2);
+        }
+        targets[size] = target;
+        actions[size] = cleanup;
+        ++size;
+    }
+
+    /**
+     * Runs the cleanups of the innermost open scope in reverse order, and closes it.
+     *
+     * @throws IllegalStateException if there's no open scope.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public final void close() throws C {
+        Throwable throwable = closeScope(null);
+        if (throwable != null) {
+            throw (C) throwable;
+        }
+    }
+
+    /**
+     * Closes the innermost open scope like {@link #close()}, but adds any exceptions
+     * to the suppressed list of {@code suppressor}.
+     *
+     * @throws NullPointerException if {@code suppressor == null}.
+     * @throws IllegalStateException if there's no open scope.
+     */
+    public final void close(Throwable suppressor) {
+        Objects.requireNonNull(suppressor, "suppressor is null");
+        closeScope(suppressor);
+    }
+
+    private Throwable closeScope(Throwable throwable) {
+        checkOpen();
+        int mark = marks[--depth];
+        while (size > mark) {
+            int index = --size;
+            Object target = targets[index];
+            ConsumerWithException<Object, ?> action = actions[index];
+            targets[index] = null;
+            actions[index] = null;
+            if (target != null) {
+                try {
+                    action.accept(target);
+                } catch (Throwable t) {
+                    if (throwable == null) {
+                        throwable = t;
+                    } else {
+                        throwable.addSuppressed(t);
+                    }
+                }
+            }
+        }
+        if (depth == 0 && targets.length > MAX_RETAINED_CAPACITY) {
+            targets = new Object[INITIAL_CAPACITY];
+            actions = newActions(INITIAL_CAPACITY);
+        }
+        return throwable;
+    }
+
+}
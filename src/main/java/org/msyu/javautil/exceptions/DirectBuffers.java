@@ -0,0 +1,228 @@
+package org.msyu.javautil.exceptions;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deterministic release of direct and memory-mapped byte buffers, and building blocks for managing them
+ * with {@link CloseableChain}s, {@link ParameterizedAutoCloseable}s and {@link ObjectPool}s.
+ *
+ * <p>Normally, the native memory or the mapping behind a direct buffer is only released when the buffer is garbage
+ * collected. {@link #free(ByteBuffer)} releases it right away, which matters when buffers are big or numerous.
+ * A typical chain maps a file and unmaps it before closing the channel:</p>
+ * <pre>{@code
+ * CloseableChain<MappedByteBuffer, IOException> chain = newCloseableChain()
+ *         .chain(__ -> FileChannel.open(path, READ), FileChannel::close)
+ *         .chain(DirectBuffers.mapping(READ_ONLY), DirectBuffers::free);
+ * }</pre>
+ *
+ * <p>Accessing a buffer after it's freed may crash the JVM, so a freed buffer must be forgotten by all its users,
+ * including its duplicates and slices. {@link Handle} helps with that by refusing to hand out a freed buffer.</p>
+ *
+ * <p>Freeing relies on JDK internals: {@code sun.misc.Unsafe.invokeCleaner} on Java 9+, or the buffer's
+ * {@code sun.misc.Cleaner} on Java 8. If neither is accessible, {@link #free(ByteBuffer)} does nothing,
+ * and the memory is released by the garbage collector as usual; see {@link #isFreeingSupported()}.</p>
+ */
+public final class DirectBuffers {
+
+    /**
+     * Frees a direct buffer; {@code null} if freeing is not supported.
+     */
+    private static final MethodHandle FREE = findFree();
+
+    private DirectBuffers() {
+    }
+
+    private static MethodHandle findFree() {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            return lookup.findVirtual(unsafeClass, "invokeCleaner", MethodType.methodType(void.class, ByteBuffer.class))
+                    .bindTo(theUnsafe.get(null));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // not Java 9+, try Java 8
+        }
+        try {
+            Class<?> directBufferClass = Class.forName("sun.nio.ch.DirectBuffer");
+            Class<?> cleanerClass = Class.forName("sun.misc.Cleaner");
+            MethodHandle cleaner = lookup.findVirtual(directBufferClass, "cleaner", MethodType.methodType(cleanerClass))
+                    .asType(MethodType.methodType(cleanerClass, ByteBuffer.class));
+            MethodHandle attachment = lookup.findVirtual(directBufferClass, "attachment", MethodType.methodType(Object.class))
+                    .asType(MethodType.methodType(Object.class, ByteBuffer.class));
+            MethodHandle clean = lookup.findVirtual(cleanerClass, "clean", MethodType.methodType(void.class));
+            MethodHandle nonNull = lookup.findStatic(Objects.class, "nonNull", MethodType.methodType(boolean.class, Object.class))
+                    .asType(MethodType.methodType(boolean.class, cleanerClass));
+            MethodHandle checkNotAttached =
+                    lookup.findStatic(DirectBuffers.class, "checkNotAttached", MethodType.methodType(void.class, Object.class));
+            // same as invokeCleaner: a buffer without a cleaner is either a duplicate or a slice,
+            // which have an attachment, or owns no memory (e.g. an empty mapping), which is fine
+            return MethodHandles.guardWithTest(
+                    MethodHandles.filterReturnValue(cleaner, nonNull),
+                    MethodHandles.filterArguments(clean, 0, cleaner),
+                    MethodHandles.filterArguments(checkNotAttached, 0, attachment)
+            );
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static void checkNotAttached(Object attachment) {
+        if (attachment != null) {
+            throw new IllegalArgumentException("buffer is a duplicate or a slice");
+        }
+    }
+
+    /**
+     * @return whether {@link #free(ByteBuffer)} actually frees buffers on this JVM.
+     */
+    public static boolean isFreeingSupported() {
+        return FREE != null;
+    }
+
+    /**
+     * Releases the memory or the mapping behind a direct buffer. Freeing a buffer again does nothing.
+     *
+     * <p>Has the signature of a {@link ConsumerWithException}, so it can be used as a destructor.</p>
+     *
+     * @throws IllegalArgumentException if the buffer is not direct, or is a duplicate or a slice of another buffer.
+     */
+    public static void free(ByteBuffer buffer) {
+        if (!buffer.isDirect()) {
+            throw new IllegalArgumentException("buffer is not direct");
+        }
+        if (FREE == null) {
+            return;
+        }
+        try {
+            FREE.invokeExact(buffer);
+        } catch (Throwable t) {
+            throw SneakyThrow.rethrow(t);
+        }
+    }
+
+    /**
+     * @return a link constructor that opens a file channel for a path.
+     */
+    public static FunctionWithException<Path, FileChannel, IOException> openChannel(OpenOption... options) {
+        OpenOption[] copy = options.clone();
+        return path -> FileChannel.open(path, copy);
+    }
+
+    /**
+     * @return a link constructor that maps the whole file of a channel.
+     */
+    public static FunctionWithException<FileChannel, MappedByteBuffer, IOException> mapping(FileChannel.MapMode mode) {
+        Objects.requireNonNull(mode, "mode is null");
+        return channel -> channel.map(mode, 0, channel.size());
+    }
+
+    /**
+     * @return a link constructor that maps a region of the file of a channel.
+     */
+    public static FunctionWithException<FileChannel, MappedByteBuffer, IOException> mapping(
+            FileChannel.MapMode mode,
+            long position,
+            long size
+    ) {
+        Objects.requireNonNull(mode, "mode is null");
+        return channel -> channel.map(mode, position, size);
+    }
+
+    /**
+     * Allocates a direct buffer that is freed when the handle is closed.
+     */
+    public static Handle<ByteBuffer> allocate(int capacity) {
+        return new Handle<>(ByteBuffer.allocateDirect(capacity));
+    }
+
+    /**
+     * Maps a region of a file into a buffer that is unmapped when the handle is closed.
+     */
+    public static Handle<MappedByteBuffer> map(FileChannel channel, FileChannel.MapMode mode, long position, long size) throws IOException {
+        return new Handle<>(channel.map(mode, position, size));
+    }
+
+    /**
+     * @return a handle that frees the buffer when it's closed.
+     *
+     * @throws IllegalArgumentException if the buffer is not direct.
+     */
+    public static <B extends ByteBuffer> Handle<B> wrap(B buffer) {
+        if (!buffer.isDirect()) {
+            throw new IllegalArgumentException("buffer is not direct");
+        }
+        return new Handle<>(buffer);
+    }
+
+    /**
+     * Creates a pool of direct buffers of the same capacity. Buffers are {@linkplain ByteBuffer#clear() cleared}
+     * when they are returned to the pool, and freed when they are evicted or the pool is closed.
+     *
+     * @see ObjectPool#ObjectPool(SupplierWithException, ConsumerWithException, java.util.function.Predicate, int, long, TimeUnit)
+     */
+    public static ObjectPool<ByteBuffer, RuntimeException> newPool(int capacity, int maxSize, long maxIdleTime, TimeUnit unit) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity is negative: " + capacity);
+        }
+        return new ObjectPool<>(
+                () -> ByteBuffer.allocateDirect(capacity),
+                DirectBuffers::free,
+                buffer -> {
+                    // the cast keeps the call linkable on Java 8 when compiled by a newer javac
+                    ((Buffer) buffer).clear();
+                    return true;
+                },
+                maxSize,
+                maxIdleTime,
+                unit
+        );
+    }
+
+    /**
+     * Owns a direct buffer and frees it when closed. Closing a handle again does nothing.
+     * Instances are not thread-safe.
+     */
+    public static final class Handle<B extends ByteBuffer> implements ParameterizedAutoCloseable<RuntimeException> {
+
+        private B buffer;
+
+        private Handle(B buffer) {
+            this.buffer = buffer;
+        }
+
+        /**
+         * @throws IllegalStateException if the buffer is freed.
+         */
+        public final B get() {
+            B b = buffer;
+            if (b == null) {
+                throw new IllegalStateException("buffer is freed");
+            }
+            return b;
+        }
+
+        @Override
+        public final void close() {
+            B b = buffer;
+            if (b != null) {
+                buffer = null;
+                free(b);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,21 @@
+package org.msyu.javautil.exceptions;
+
+/**
+ * A {@link ConsumerWithException} specialized for a {@code double} input.
+ */
+@FunctionalInterface
+public interface DoubleConsumerWithException<X extends Exception> {
+
+    void accept(double input) throws X;
+
+    default ConsumerWithException<Double, X> boxed() {
+        return this::accept;
+    }
+
+    static <X extends Exception> DoubleConsumerWithException<X> unboxed(
+            ConsumerWithException<? super Double, ? extends X> consumer
+    ) {
+        return consumer::accept;
+    }
+
+}
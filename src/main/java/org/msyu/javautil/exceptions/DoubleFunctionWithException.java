@@ -0,0 +1,21 @@
+package org.msyu.javautil.exceptions;
+
+/**
+ * A {@link FunctionWithException} specialized for a {@code double} input.
+ */
+@FunctionalInterface
+public interface DoubleFunctionWithException<O, X extends Exception> {
+
+    O apply(double input) throws X;
+
+    default FunctionWithException<Double, O, X> boxed() {
+        return this::apply;
+    }
+
+    static <O, X extends Exception> DoubleFunctionWithException<O, X> unboxed(
+            FunctionWithException<? super Double, ? extends O, ? extends X> function
+    ) {
+        return function::apply;
+    }
+
+}
@@ -0,0 +1,21 @@
+package org.msyu.javautil.exceptions;
+
+/**
+ * A {@link SupplierWithException} specialized for a {@code double} output.
+ */
+@FunctionalInterface
+public interface DoubleSupplierWithException<X extends Exception> {
+
+    double getAsDouble() throws X;
+
+    default SupplierWithException<Double, X> boxed() {
+        return this::getAsDouble;
+    }
+
+    static <X extends Exception> DoubleSupplierWithException<X> unboxed(
+            SupplierWithException<Double, ? extends X> supplier
+    ) {
+        return supplier::get;
+    }
+
+}
@@ -0,0 +1,21 @@
+package org.msyu.javautil.exceptions;
+
+/**
+ * A {@link FunctionWithException} specialized for a {@code double} input and an {@code int} output.
+ */
+@FunctionalInterface
+public interface DoubleToIntFunctionWithException<X extends Exception> {
+
+    int applyAsInt(double input) throws X;
+
+    default FunctionWithException<Double, Integer, X> boxed() {
+        return this::applyAsInt;
+    }
+
+    static <X extends Exception> DoubleToIntFunctionWithException<X> unboxed(
+            FunctionWithException<? super Double, Integer, ? extends X> function
+    ) {
+        return function::apply;
+    }
+
+}
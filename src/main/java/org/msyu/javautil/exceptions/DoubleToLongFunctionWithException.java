@@ -0,0 +1,21 @@
+package org.msyu.javautil.exceptions;
+
+/**
+ * A {@link FunctionWithException} specialized for a {@code double} input and a {@code long} output.
+ */
+@FunctionalInterface
+public interface DoubleToLongFunctionWithException<X extends Exception> {
+
+    long applyAsLong(double input) throws X;
+
+    default FunctionWithException<Double, Long, X> boxed() {
+        return this::applyAsLong;
+    }
+
+    static <X extends Exception> DoubleToLongFunctionWithException<X> unboxed(
+            FunctionWithException<? super Double, Long, ? extends X> function
+    ) {
+        return function::apply;
+    }
+
+}
@@ -0,0 +1,34 @@
+package org.msyu.javautil.exceptions;
+
+/**
+ * Suppressed in place of the exceptions that were not recorded because of a cap on their amount.
+ */
+public class DroppedExceptionsSummary extends StacklessRuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long droppedCount;
+
+    private final long totalCount;
+
+    public DroppedExceptionsSummary(long droppedCount, long totalCount) {
+        super(droppedCount + " more exceptions were dropped (" + totalCount + " in total)");
+        this.droppedCount = droppedCount;
+        this.totalCount = totalCount;
+    }
+
+    /**
+     * @return the amount of exceptions that were not recorded.
+     */
+    public final long getDroppedCount() {
+        return droppedCount;
+    }
+
+    /**
+     * @return the amount of exceptions that were thrown, including the recorded ones.
+     */
+    public final long getTotalCount() {
+        return totalCount;
+    }
+
+}
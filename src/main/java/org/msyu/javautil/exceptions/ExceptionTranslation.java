@@ -0,0 +1,46 @@
+package org.msyu.javautil.exceptions;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Function;
+
+final class ExceptionTranslation {
+
+    private ExceptionTranslation() {
+    }
+
+    /**
+     * The default translation of checked exceptions to unchecked ones: {@link UncheckedIOException}
+     * for {@link IOException}s, and a plain {@link RuntimeException} with the exception as the cause for the rest.
+     */
+    static RuntimeException toUnchecked(Exception e) {
+        if (e instanceof IOException) {
+            return new UncheckedIOException((IOException) e);
+        }
+        return new RuntimeException(e);
+    }
+
+    /**
+     * The translation done by the {@code mapChecked} adapters: checked exceptions of the expected type are translated
+     * with {@code translator}, and the others (which can only get there through sneaky throwing) are rethrown as is.
+     *
+     * @throws NullPointerException if {@code translator} returns {@code null}; {@code e} is its cause.
+     */
+    static <X extends Exception, Y extends Exception> Y translateChecked(
+            Exception e,
+            Class<X> type,
+            Function<? super X, ? extends Y> translator
+    ) {
+        if (!type.isInstance(e)) {
+            throw SneakyThrow.rethrow(e);
+        }
+        Y translated = translator.apply(type.cast(e));
+        if (translated == null) {
+            NullPointerException npe = new NullPointerException("translator returned null");
+            npe.initCause(e);
+            throw npe;
+        }
+        return translated;
+    }
+
+}
@@ -0,0 +1,52 @@
+package org.msyu.javautil.exceptions;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+final class ExpiringMemoizingSupplier<O, X extends Exception> implements SupplierWithException<O, X> {
+
+    private final SupplierWithException<? extends O, ? extends X> delegate;
+
+    private final long durationNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private volatile Entry<O> entry;
+
+    ExpiringMemoizingSupplier(SupplierWithException<? extends O, ? extends X> delegate, long durationNanos) {
+        this.delegate = delegate;
+        this.durationNanos = durationNanos;
+    }
+
+    @Override
+    public final O get() throws X {
+        Entry<O> e = entry;
+        if (e == null || System.nanoTime() - e.expiresAtNanos >= 0) {
+            lock.lock();
+            try {
+                e = entry;
+                if (e == null || System.nanoTime() - e.expiresAtNanos >= 0) {
+                    O value = delegate.get();
+                    e = new Entry<>(value, System.nanoTime() + durationNanos);
+                    entry = e;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        return e.value;
+    }
+
+    private static final class Entry<O> {
+
+        private final O value;
+
+        private final long expiresAtNanos;
+
+        private Entry(O value, long expiresAtNanos) {
+            this.value = value;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+
+    }
+
+}
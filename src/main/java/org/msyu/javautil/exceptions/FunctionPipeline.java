@@ -0,0 +1,116 @@
+package org.msyu.javautil.exceptions;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A function that applies a sequence of stages, each to the result of the previous one.
+ *
+ * <p>Unlike nested {@link FunctionWithException#andThen(FunctionWithException) andThen()} calls, which add a level of
+ * indirection per stage, a pipeline keeps its stages in a flat array and applies them in a loop. Adding a pipeline
+ * as a stage of another one, or calling {@link #andThen(FunctionWithException) andThen()} or
+ * {@link #compose(FunctionWithException) compose()} on a pipeline, copies the stages instead of nesting.</p>
+ *
+ * <p>The exception type of a pipeline is declared when its builder is created, and each stage must throw a subtype
+ * of it. A pipeline can be {@linkplain #widen(FunctionPipeline) widened} to a supertype, for example to append
+ * a stage that throws an unrelated exception.</p>
+ *
+ * <p>Pipelines are immutable, and are thread-safe if their stages are.</p>
+ */
+public final class FunctionPipeline<I, O, X extends Exception> implements FunctionWithException<I, O, X> {
+
+    public static <I, X extends Exception> Builder<I, I, X> builder() {
+        return new Builder<>();
+    }
+
+    /**
+     * @return the same pipeline, typed as throwing a supertype of its exceptions.
+     */
+    @SuppressWarnings("unchecked")
+    public static <I, O, Y extends Exception> FunctionPipeline<I, O, Y> widen(FunctionPipeline<I, O, ? extends Y> pipeline) {
+        return (FunctionPipeline<I, O, Y>) pipeline;
+    }
+
+    private final FunctionWithException<Object, Object, ? extends X>[] stages;
+
+    private FunctionPipeline(FunctionWithException<Object, Object, ? extends X>[] stages) {
+        this.stages = stages;
+    }
+
+    /**
+     * @return the amount of stages in this pipeline.
+     */
+    public final int size() {
+        return stages.length;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public final O apply(I input) throws X {
+        Object value = input;
+        for (FunctionWithException<Object, Object, ? extends X> stage : stages) {
+            value = stage.apply(value);
+        }
+        return (O) value;
+    }
+
+    @Override
+    public final <V> FunctionPipeline<I, V, X> andThen(FunctionWithException<? super O, ? extends V, ? extends X> after) {
+        Objects.requireNonNull(after, "after is null");
+        return new FunctionPipeline<>(concat(stages, stagesOf(after)));
+    }
+
+    @Override
+    public final <V> FunctionPipeline<V, O, X> compose(FunctionWithException<? super V, ? extends I, ? extends X> before) {
+        Objects.requireNonNull(before, "before is null");
+        return new FunctionPipeline<>(concat(stagesOf(before), stages));
+    }
+
+    private static <X extends Exception> FunctionWithException<Object, Object, ? extends X>[] stagesOf(
+            FunctionWithException<?, ?, ? extends X> function
+    ) {
+        if (function instanceof FunctionPipeline) {
+            return ((FunctionPipeline<?, ?, ? extends X>) function).stages;
+        }
+        @SuppressWarnings("unchecked")
+        FunctionWithException<Object, Object, ? extends X>[] stages =
+                (FunctionWithException<Object, Object, ? extends X>[]) new FunctionWithException<?, ?, ?>[]{function};
+        return stages;
+    }
+
+    private static <T> T[] concat(T[] first, T[] second) {
+        T[] result = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+
+    /**
+     * Accumulates the stages of a pipeline. Each stage method returns this same builder, retyped for the next stage,
+     * so previously returned references shouldn't be used.
+     */
+    public static final class Builder<I, O, X extends Exception> {
+
+        private final List<FunctionWithException<Object, Object, ? extends X>> stages = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        @SuppressWarnings("unchecked")
+        public final <P> Builder<I, P, X> then(FunctionWithException<? super O, ? extends P, ? extends X> stage) {
+            Objects.requireNonNull(stage, "stage is null");
+            stages.addAll(Arrays.asList(stagesOf(stage)));
+            return (Builder<I, P, X>) this;
+        }
+
+        public final FunctionPipeline<I, O, X> build() {
+            @SuppressWarnings("unchecked")
+            FunctionWithException<Object, Object, ? extends X>[] stageArray =
+                    stages.toArray((FunctionWithException<Object, Object, ? extends X>[]) new FunctionWithException<?, ?, ?>[0]);
+            return new FunctionPipeline<>(stageArray);
+        }
+
+    }
+
+}
@@ -0,0 +1,210 @@
+package org.msyu.javautil.exceptions;
+
+import org.reactivestreams.Processor;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A Reactive Streams processor that transforms each item with a {@link FunctionWithException}.
+ *
+ * <p>The processor keeps no buffer: the downstream demand is passed upstream as is, and each item is transformed
+ * and passed downstream on the thread that delivered it. If the function returns {@code null}, the item is dropped,
+ * and one more item is requested from upstream instead. If the function throws, the upstream subscription is
+ * cancelled, and the exception itself, with its original type, is signalled downstream via {@code onError}.</p>
+ *
+ * <p>The processor may own a {@link CloseableChain} of resources, which is closed once the stream terminates:
+ * when it completes, fails, or is cancelled by downstream. Destructor exceptions are suppressed by the stream's
+ * failure, or replace the completion signal with {@code onError}. On cancellation there's nobody to report them to;
+ * use a {@link ResourceListener} on the chain to observe them. If downstream cancels while an item is being
+ * transformed, the chain is closed by the upstream thread once the function returns.</p>
+ *
+ * <p>The processor supports a single subscriber, and may be subscribed to upstream and downstream in any order.
+ * It implements {@link java.util.concurrent.Flow}'s contract through the Reactive Streams interfaces,
+ * which Java 8 users get from the {@code org.reactivestreams:reactive-streams} artifact (an optional dependency
+ * of this library) and Java 9+ users can adapt with {@code org.reactivestreams.FlowAdapters}.</p>
+ */
+public final class FunctionProcessor<I, O, X extends Exception> implements Processor<I, O> {
+
+    private static final Object COMPLETE = new Object();
+
+    private static final int ACTIVE = 1;
+
+    private static final int CANCELLED = 2;
+
+    private final FunctionWithException<? super I, ? extends O, ? extends X> function;
+
+    private final CloseableChain<?, ?> resources;
+
+    private final AtomicReference<Subscriber<? super O>> downstream = new AtomicReference<>();
+
+    private volatile Subscription upstream;
+
+    /**
+     * Counts the sides that are subscribed; downstream gets {@code onSubscribe} when it reaches two.
+     */
+    private final AtomicInteger subscribed = new AtomicInteger();
+
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    /**
+     * {@link #COMPLETE}, the exception to signal, or {@code null} while the stream goes on.
+     */
+    private volatile Object terminal;
+
+    private final AtomicBoolean terminalSignalled = new AtomicBoolean();
+
+    /**
+     * Set when the function fails, so that the items that were already on their way are ignored.
+     */
+    private volatile boolean failed;
+
+    /**
+     * The {@link #ACTIVE} bit is set while {@link #onNext(Object)} runs, the {@link #CANCELLED} bit once downstream
+     * cancels. Whichever of them finds the other one set closes the resources, so that they're never closed while
+     * the function is using them.
+     */
+    private final AtomicInteger state = new AtomicInteger();
+
+    public FunctionProcessor(FunctionWithException<? super I, ? extends O, ? extends X> function) {
+        this(function, null);
+    }
+
+    /**
+     * @param resources closed when the stream terminates; may be {@code null}.
+     */
+    public FunctionProcessor(
+            FunctionWithException<? super I, ? extends O, ? extends X> function,
+            CloseableChain<?, ?> resources
+    ) {
+        this.function = Objects.requireNonNull(function, "function is null");
+        this.resources = resources;
+    }
+
+    @Override
+    public final void subscribe(Subscriber<? super O> subscriber) {
+        Objects.requireNonNull(subscriber, "subscriber is null");
+        if (!downstream.compareAndSet(null, subscriber)) {
+            subscriber.onSubscribe(new Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onError(new IllegalStateException("processor already has a subscriber"));
+            return;
+        }
+        bothSubscribed();
+    }
+
+    @Override
+    public final void onSubscribe(Subscription subscription) {
+        Objects.requireNonNull(subscription, "subscription is null");
+        if (upstream != null) {
+            subscription.cancel();
+            return;
+        }
+        upstream = subscription;
+        bothSubscribed();
+    }
+
+    private void bothSubscribed() {
+        if (subscribed.incrementAndGet() == 2) {
+            downstream.get().onSubscribe(new DownstreamSubscription());
+            signalTerminal();
+        }
+    }
+
+    @Override
+    public final void onNext(I item) {
+        Objects.requireNonNull(item, "item is null");
+        if (failed || !state.compareAndSet(0, ACTIVE)) {
+            return;
+        }
+        try {
+            O output;
+            try {
+                output = function.apply(item);
+            } catch (Throwable t) {
+                failed = true;
+                upstream.cancel();
+                terminate(t);
+                return;
+            }
+            if (output == null) {
+                upstream.request(1);
+            } else {
+                downstream.get().onNext(output);
+            }
+        } finally {
+            if (!state.compareAndSet(ACTIVE, 0)) {
+                // downstream cancelled while the item was being processed
+                release(null);
+            }
+        }
+    }
+
+    @Override
+    public final void onError(Throwable throwable) {
+        Objects.requireNonNull(throwable, "throwable is null");
+        if (!failed) {
+            terminate(throwable);
+        }
+    }
+
+    @Override
+    public final void onComplete() {
+        if (!failed) {
+            terminate(null);
+        }
+    }
+
+    private void terminate(Throwable throwable) {
+        Throwable t = release(throwable);
+        terminal = t == null ? COMPLETE : t;
+        signalTerminal();
+    }
+
+    private void signalTerminal() {
+        Object signal = terminal;
+        if (signal != null && subscribed.get() == 2 && terminalSignalled.compareAndSet(false, true)) {
+            if (signal == COMPLETE) {
+                downstream.get().onComplete();
+            } else {
+                downstream.get().onError((Throwable) signal);
+            }
+        }
+    }
+
+    private Throwable release(Throwable throwable) {
+        if (resources == null || !released.compareAndSet(false, true)) {
+            return throwable;
+        }
+        return CloseableChain.closeCatching(resources, throwable);
+    }
+
+    private final class DownstreamSubscription implements Subscription {
+
+        @Override
+        public void request(long n) {
+            upstream.request(n);
+        }
+
+        @Override
+        public void cancel() {
+            upstream.cancel();
+            if ((state.getAndUpdate(s -> s | CANCELLED) & ACTIVE) == 0) {
+                release(null);
+            }
+        }
+
+    }
+
+}
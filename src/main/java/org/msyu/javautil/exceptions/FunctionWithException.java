@@ -1,13 +1,144 @@
 package org.msyu.javautil.exceptions;
 
+import java.util.Objects;
+import java.util.function.Function;
+
 @FunctionalInterface
 public interface FunctionWithException<I, O, X extends Exception> {
 
     O apply(I input) throws X;
 
+    /**
+     * @return a function that applies this function, and then {@code after} to the result.
+     *
+     * @see FunctionPipeline
+     */
+    default <V> FunctionWithException<I, V, X> andThen(FunctionWithException<? super O, ? extends V, ? extends X> after) {
+        Objects.requireNonNull(after, "after is null");
+        return input -> after.apply(apply(input));
+    }
+
+    /**
+     * @return a function that applies {@code before}, and then this function to the result.
+     *
+     * @see FunctionPipeline
+     */
+    default <V> FunctionWithException<V, O, X> compose(FunctionWithException<? super V, ? extends I, ? extends X> before) {
+        Objects.requireNonNull(before, "before is null");
+        return input -> apply(before.apply(input));
+    }
+
+    /**
+     * @return a consumer that applies this function, and passes the result to {@code after}.
+     */
+    default ConsumerWithException<I, X> andThenConsume(ConsumerWithException<? super O, ? extends X> after) {
+        Objects.requireNonNull(after, "after is null");
+        return input -> after.accept(apply(input));
+    }
+
+    /**
+     * @return a function that retries failed calls to this one according to the policy.
+     */
+    default FunctionWithException<I, O, X> withRetry(RetryPolicy<?> policy) {
+        Objects.requireNonNull(policy, "policy is null");
+        return input -> policy.call(() -> apply(input));
+    }
+
+    /**
+     * @return a function that calls this one through the circuit breaker.
+     */
+    default FunctionWithException<I, O, X> withCircuitBreaker(CircuitBreaker breaker) {
+        Objects.requireNonNull(breaker, "breaker is null");
+        return input -> breaker.call(() -> apply(input));
+    }
+
     @SuppressWarnings("unchecked")
     static <R, X extends Exception> FunctionWithException<R, R, X> identity() {
         return (FunctionWithException<R, R, X>) IdentityFunction.INSTANCE;
     }
 
+    /**
+     * Adapts {@code function} to {@link Function}, throwing its checked exceptions as is, without declaring them.
+     */
+    @SuppressWarnings("unchecked")
+    static <I, O> Function<I, O> sneaky(FunctionWithException<? super I, ? extends O, ?> function) {
+        Objects.requireNonNull(function, "function is null");
+        if (function == IdentityFunction.INSTANCE) {
+            return (Function<I, O>) Function.identity();
+        }
+        return input -> {
+            try {
+                return function.apply(input);
+            } catch (Exception e) {
+                throw SneakyThrow.rethrow(e);
+            }
+        };
+    }
+
+    /**
+     * Adapts {@code function} to {@link Function},
+     * wrapping its checked exceptions in {@link java.io.UncheckedIOException} if they are {@link java.io.IOException}s,
+     * or in {@link RuntimeException}s otherwise.
+     * Unchecked exceptions are thrown as is.
+     */
+    static <I, O> Function<I, O> unchecked(FunctionWithException<? super I, ? extends O, ?> function) {
+        return unchecked(function, ExceptionTranslation::toUnchecked);
+    }
+
+    /**
+     * Adapts {@code function} to {@link Function},
+     * translating its checked exceptions with {@code translator}.
+     * Unchecked exceptions are thrown as is.
+     */
+    @SuppressWarnings("unchecked")
+    static <I, O> Function<I, O> unchecked(
+            FunctionWithException<? super I, ? extends O, ?> function,
+            Function<? super Exception, ? extends RuntimeException> translator
+    ) {
+        Objects.requireNonNull(function, "function is null");
+        Objects.requireNonNull(translator, "translator is null");
+        if (function == IdentityFunction.INSTANCE) {
+            return (Function<I, O>) Function.identity();
+        }
+        return input -> {
+            try {
+                return function.apply(input);
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw translator.apply(e);
+            }
+        };
+    }
+
+    /**
+     * Returns a function that translates the checked exceptions of {@code function} with {@code translator}.
+     * Unchecked exceptions, and checked exceptions that aren't instances of {@code type}
+     * (such as ones thrown sneakily), are thrown as is.
+     *
+     * @throws NullPointerException if {@code function}, {@code type} or {@code translator} is {@code null}.
+     */
+    @SuppressWarnings("unchecked")
+    static <I, O, X extends Exception, Y extends Exception> FunctionWithException<I, O, Y> mapChecked(
+            FunctionWithException<? super I, ? extends O, ? extends X> function,
+            Class<X> type,
+            Function<? super X, ? extends Y> translator
+    ) {
+        Objects.requireNonNull(function, "function is null");
+        Objects.requireNonNull(type, "type is null");
+        Objects.requireNonNull(translator, "translator is null");
+        if (function == IdentityFunction.INSTANCE) {
+            return (FunctionWithException<I, O, Y>) function;
+        }
+        return input -> {
+            try {
+                return function.apply(input);
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw ExceptionTranslation.translateChecked(e, type, translator);
+            }
+        };
+    }
+
 }
@@ -0,0 +1,108 @@
+package org.msyu.javautil.exceptions;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link ResourceListener} that counts failures and suppressed exceptions,
+ * and keeps histograms of construction and destruction durations.
+ *
+ * <p>The histograms have power-of-two buckets: bucket {@code 0} counts zero durations,
+ * and bucket {@code i > 0} counts durations from <code>2<sup>i-1</sup></code> up to, but not including,
+ * <code>2<sup>i</sup></code> nanoseconds. Recording takes a couple of arithmetic operations and
+ * a {@link LongAdder} increment, so it scales well with many threads.</p>
+ */
+public final class HistogramResourceListener implements ResourceListener {
+
+    public static final int BUCKET_COUNT = 64;
+
+    private final LongAdder[] constructionHistogram = newHistogram();
+
+    private final LongAdder[] destructionHistogram = newHistogram();
+
+    private final LongAdder constructionFailures = new LongAdder();
+
+    private final LongAdder destructionFailures = new LongAdder();
+
+    private final LongAdder suppressedExceptions = new LongAdder();
+
+    private static LongAdder[] newHistogram() {
+        LongAdder[] histogram = new LongAdder[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; ++i) {
+            histogram[i] = new LongAdder();
+        }
+        return histogram;
+    }
+
+    private static void record(LongAdder[] histogram, long nanos) {
+        histogram[Math.min(BUCKET_COUNT - 1, 64 - Long.numberOfLeadingZeros(Math.max(nanos, 0)))].increment();
+    }
+
+    @Override
+    public final void constructed(Object output, long nanos) {
+        record(constructionHistogram, nanos);
+    }
+
+    @Override
+    public final void constructionFailed(Throwable failure, long nanos) {
+        record(constructionHistogram, nanos);
+        constructionFailures.increment();
+    }
+
+    @Override
+    public final void destroyed(Object resource, long nanos) {
+        record(destructionHistogram, nanos);
+    }
+
+    @Override
+    public final void destructionFailed(Object resource, Throwable failure, long nanos) {
+        record(destructionHistogram, nanos);
+        destructionFailures.increment();
+    }
+
+    @Override
+    public final void suppressed(Throwable primary, Throwable suppressed) {
+        suppressedExceptions.increment();
+    }
+
+    /**
+     * @return a snapshot of the construction duration histogram, failed constructions included.
+     */
+    public final long[] getConstructionHistogram() {
+        return snapshot(constructionHistogram);
+    }
+
+    /**
+     * @return a snapshot of the destruction duration histogram, failed destructions included.
+     */
+    public final long[] getDestructionHistogram() {
+        return snapshot(destructionHistogram);
+    }
+
+    private static long[] snapshot(LongAdder[] histogram) {
+        long[] snapshot = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; ++i) {
+            snapshot[i] = histogram[i].sum();
+        }
+        return snapshot;
+    }
+
+    public final long getConstructionFailureCount() {
+        return constructionFailures.sum();
+    }
+
+    public final long getDestructionFailureCount() {
+        return destructionFailures.sum();
+    }
+
+    public final long getSuppressedExceptionCount() {
+        return suppressedExceptions.sum();
+    }
+
+    /**
+     * @return the smallest duration, in nanoseconds, that does not fit in the specified bucket.
+     */
+    public static long getBucketUpperBound(int bucket) {
+        return bucket >= BUCKET_COUNT - 1 ? Long.MAX_VALUE : 1L << bucket;
+    }
+
+}
@@ -0,0 +1,21 @@
+package org.msyu.javautil.exceptions;
+
+/**
+ * A {@link ConsumerWithException} specialized for an {@code int} input.
+ */
+@FunctionalInterface
+public interface IntConsumerWithException<X extends Exception> {
+
+    void accept(int input) throws X;
+
+    default ConsumerWithException<Integer, X> boxed() {
+        return this::accept;
+    }
+
+    static <X extends Exception> IntConsumerWithException<X> unboxed(
+            ConsumerWithException<? super Integer, ? extends X> consumer
+    ) {
+        return consumer::accept;
+    }
+
+}
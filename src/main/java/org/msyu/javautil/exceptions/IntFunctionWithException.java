@@ -0,0 +1,21 @@
+package org.msyu.javautil.exceptions;
+
+/**
+ * A {@link FunctionWithException} specialized for an {@code int} input.
+ */
+@FunctionalInterface
+public interface IntFunctionWithException<O, X extends Exception> {
+
+    O apply(int input) throws X;
+
+    default FunctionWithException<Integer, O, X> boxed() {
+        return this::apply;
+    }
+
+    static <O, X extends Exception> IntFunctionWithException<O, X> unboxed(
+            FunctionWithException<? super Integer, ? extends O, ? extends X> function
+    ) {
+        return function::apply;
+    }
+
+}
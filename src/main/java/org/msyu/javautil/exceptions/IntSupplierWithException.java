@@ -0,0 +1,21 @@
+package org.msyu.javautil.exceptions;
+
+/**
+ * A {@link SupplierWithException} specialized for an {@code int} output.
+ */
+@FunctionalInterface
+public interface IntSupplierWithException<X extends Exception> {
+
+    int getAsInt() throws X;
+
+    default SupplierWithException<Integer, X> boxed() {
+        return this::getAsInt;
+    }
+
+    static <X extends Exception> IntSupplierWithException<X> unboxed(
+            SupplierWithException<Integer, ? extends X> supplier
+    ) {
+        return supplier::get;
+    }
+
+}
@@ -0,0 +1,21 @@
+package org.msyu.javautil.exceptions;
+
+/**
+ * A {@link FunctionWithException} specialized for an {@code int} input and a {@code double} output.
+ */
+@FunctionalInterface
+public interface IntToDoubleFunctionWithException<X extends Exception> {
+
+    double applyAsDouble(int input) throws X;
+
+    default FunctionWithException<Integer, Double, X> boxed() {
+        return this::applyAsDouble;
+    }
+
+    static <X extends Exception> IntToDoubleFunctionWithException<X> unboxed(
+            FunctionWithException<? super Integer, Double, ? extends X> function
+    ) {
+        return function::apply;
+    }
+
+}
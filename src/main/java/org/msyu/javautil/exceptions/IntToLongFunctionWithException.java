@@ -0,0 +1,21 @@
+package org.msyu.javautil.exceptions;
+
+/**
+ * A {@link FunctionWithException} specialized for an {@code int} input and a {@code long} output.
+ */
+@FunctionalInterface
+public interface IntToLongFunctionWithException<X extends Exception> {
+
+    long applyAsLong(int input) throws X;
+
+    default FunctionWithException<Integer, Long, X> boxed() {
+        return this::applyAsLong;
+    }
+
+    static <X extends Exception> IntToLongFunctionWithException<X> unboxed(
+            FunctionWithException<? super Integer, Long, ? extends X> function
+    ) {
+        return function::apply;
+    }
+
+}
@@ -0,0 +1,168 @@
+package org.msyu.javautil.exceptions;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.ReferenceQueue;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+
+/**
+ * Reports resources that are garbage collected without being closed.
+ *
+ * <p>The detector is disabled by default. When enabled with a sampling interval of {@code N}, about one in {@code N}
+ * created {@linkplain CloseableChain chains} and {@linkplain #track(ParameterizedAutoCloseable) tracked} resources
+ * records its creation stack trace. If such a resource becomes unreachable before it's closed, a
+ * {@link ResourceLeakException} with that stack trace is passed to the leak handler, which prints it to
+ * {@code System.err} by default. A chain counts as closed once any of the {@code close} methods reaches its root;
+ * a chain that was never extended holds no resources, and isn't reported.</p>
+ *
+ * <p>Leaks are reported when the next sampled resource is created, or when {@link #checkForLeaks()} is called.
+ * When the detector is disabled, creating a resource costs a single volatile read.</p>
+ */
+public final class LeakDetector {
+
+    private static volatile int samplingInterval;
+
+    private static volatile Consumer<? super ResourceLeakException> leakHandler = Throwable::printStackTrace;
+
+    private static final ReferenceQueue<Probe> queue = new ReferenceQueue<>();
+
+    /**
+     * Keeps the trackers reachable until their probes are either closed or collected.
+     */
+    private static final Set<Tracker> trackers = ConcurrentHashMap.newKeySet();
+
+    private LeakDetector() {
+    }
+
+    /**
+     * @param interval {@code 0} to disable the detector, {@code 1} to track every resource,
+     * {@code N} to track about one in {@code N} resources.
+     *
+     * @throws IllegalArgumentException if {@code interval < 0}.
+     */
+    public static void setSamplingInterval(int interval) {
+        if (interval < 0) {
+            throw new IllegalArgumentException("sampling interval is negative: " + interval);
+        }
+        samplingInterval = interval;
+    }
+
+    public static int getSamplingInterval() {
+        return samplingInterval;
+    }
+
+    public static void setLeakHandler(Consumer<? super ResourceLeakException> handler) {
+        leakHandler = Objects.requireNonNull(handler, "handler is null");
+    }
+
+    /**
+     * @return {@code resource} itself if it's not sampled; otherwise, a wrapper that closes {@code resource}
+     * and reports a leak if it's garbage collected without being closed.
+     */
+    public static <X extends Exception> ParameterizedAutoCloseable<X> track(ParameterizedAutoCloseable<X> resource) {
+        Objects.requireNonNull(resource, "resource is null");
+        Probe probe = sample();
+        if (probe == null) {
+            return resource;
+        }
+        probe.tracker.armed = true;
+        return () -> {
+            probe.close();
+            resource.close();
+        };
+    }
+
+    /**
+     * Reports the leaks that were detected since the last check.
+     *
+     * @return the number of reported leaks.
+     */
+    public static int checkForLeaks() {
+        int leaks = 0;
+        Tracker tracker;
+        while ((tracker = (Tracker) queue.poll()) != null) {
+            if (trackers.remove(tracker) && tracker.armed) {
+                ++leaks;
+                leakHandler.accept(tracker.creationSite);
+            }
+        }
+        return leaks;
+    }
+
+    /**
+     * The returned probe doesn't report a leak until it's {@linkplain #armed(Object) armed}.
+     *
+     * @return {@code null} if the resource isn't sampled.
+     */
+    @SuppressWarnings("unchecked")
+    static <T, C extends Exception> ConsumerWithException<T, C> newProbe() {
+        return (ConsumerWithException<T, C>) (ConsumerWithException<?, ?>) sample();
+    }
+
+    private static Probe sample() {
+        int interval = samplingInterval;
+        if (interval == 0 || (interval > 1 && ThreadLocalRandom.current().nextInt(interval) != 0)) {
+            return null;
+        }
+        checkForLeaks();
+        Probe probe = new Probe();
+        probe.tracker = new Tracker(probe, new ResourceLeakException("resource was garbage collected without being closed"));
+        trackers.add(probe.tracker);
+        return probe;
+    }
+
+    /**
+     * Makes the probe report a leak if it's collected before being closed. Does nothing if {@code probe} wasn't
+     * returned by {@link #newProbe()}.
+     */
+    static void armed(Object probe) {
+        if (probe instanceof Probe) {
+            ((Probe) probe).tracker.armed = true;
+        }
+    }
+
+    /**
+     * Marks the resource as closed if {@code probe} was returned by {@link #newProbe()}.
+     */
+    static void closed(Object probe) {
+        if (probe instanceof Probe) {
+            ((Probe) probe).close();
+        }
+    }
+
+    /**
+     * Held by the tracked resource, so that it becomes unreachable together with it.
+     */
+    private static final class Probe implements ConsumerWithException<Object, RuntimeException> {
+
+        private Tracker tracker;
+
+        @Override
+        public final void accept(Object input) {
+            close();
+        }
+
+        private void close() {
+            trackers.remove(tracker);
+            tracker.clear();
+        }
+
+    }
+
+    private static final class Tracker extends PhantomReference<Probe> {
+
+        private final ResourceLeakException creationSite;
+
+        private volatile boolean armed;
+
+        private Tracker(Probe probe, ResourceLeakException creationSite) {
+            super(probe, queue);
+            this.creationSite = creationSite;
+        }
+
+    }
+
+}
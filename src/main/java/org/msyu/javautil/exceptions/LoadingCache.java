@@ -0,0 +1,371 @@
+package org.msyu.javautil.exceptions;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * A bounded, thread-safe cache that loads missing values with a {@link FunctionWithException}
+ * and releases evicted values with a {@link ConsumerWithException}, the same way {@link CloseableChain}
+ * releases its links.
+ *
+ * <p>The cache is split into independently locked segments, each evicting its least recently used values
+ * when it grows past its share of the maximum size. Values are loaded outside of the locks; concurrent requests
+ * for a key that is being loaded wait for that load and share its outcome. A loader exception is rethrown
+ * as is, with its checked type, to the caller that triggered the load and to all the callers waiting for it,
+ * and nothing is cached for the key.</p>
+ *
+ * <p>Values removed by {@link #invalidate(Object)}, {@link #invalidateAll()} or {@link #close()} are destroyed
+ * on the calling thread, and destructor exceptions are rethrown from those methods. Values evicted because of
+ * the size limit are destroyed by the {@link #get(Object)} call that caused the eviction; since the caller
+ * isn't interested in them, their destructor exceptions are only counted and passed to the eviction failure
+ * handler. A value is destroyed when it's evicted or invalidated even if some caller of {@code get()}
+ * still holds it, so values must not be used after they may have been removed from the cache.</p>
+ *
+ * <p>Invalidating a key that is being loaded, or closing the cache, discards the load in flight: its value
+ * is destroyed as soon as it's loaded instead of being cached, and the waiting {@code get()} calls load
+ * the key again, or throw {@link IllegalStateException} if the cache is closed.</p>
+ *
+ * <p>Neither keys nor values may be {@code null}.</p>
+ */
+public final class LoadingCache<K, V, X extends Exception> implements ParameterizedAutoCloseable<X> {
+
+    private final FunctionWithException<? super K, ? extends V, ? extends X> loader;
+
+    private final ConsumerWithException<? super V, ? extends X> destructor;
+
+    private final Consumer<? super Throwable> evictionFailureHandler;
+
+    private final Segment<K, V>[] segments;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder loadSuccesses = new LongAdder();
+
+    private final LongAdder loadFailures = new LongAdder();
+
+    private final LongAdder totalLoadNanos = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    private final LongAdder evictionFailures = new LongAdder();
+
+    private volatile boolean closed;
+
+    /**
+     * Creates a cache with as many segments as there are processors.
+     *
+     * @see #LoadingCache(FunctionWithException, ConsumerWithException, Consumer, int, int)
+     */
+    public LoadingCache(
+            FunctionWithException<? super K, ? extends V, ? extends X> loader,
+            ConsumerWithException<? super V, ? extends X> destructor,
+            Consumer<? super Throwable> evictionFailureHandler,
+            int maxSize
+    ) {
+        this(loader, destructor, evictionFailureHandler, maxSize, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param destructor releases removed values; {@code null} means they don't need releasing.
+     * @param evictionFailureHandler receives the exceptions thrown by the destructor for values evicted because
+     * of the size limit, and for discarded loads; may be {@code null}.
+     * @param maxSize the maximum amount of cached values. The actual limit may be slightly higher,
+     * since it's divided evenly between the segments.
+     * @param concurrencyLevel the desired amount of segments. It's rounded up to a power of two,
+     * but not beyond {@code maxSize}.
+     *
+     * @throws NullPointerException if {@code loader == null}.
+     * @throws IllegalArgumentException if {@code maxSize <= 0} or {@code concurrencyLevel <= 0}.
+     */
+    public LoadingCache(
+            FunctionWithException<? super K, ? extends V, ? extends X> loader,
+            ConsumerWithException<? super V, ? extends X> destructor,
+            Consumer<? super Throwable> evictionFailureHandler,
+            int maxSize,
+            int concurrencyLevel
+    ) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("max size is not positive: " + maxSize);
+        }
+        if (concurrencyLevel <= 0) {
+            throw new IllegalArgumentException("concurrency level is not positive: " + concurrencyLevel);
+        }
+        this.loader = Objects.requireNonNull(loader, "loader is null");
+        this.destructor = destructor;
+        this.evictionFailureHandler = evictionFailureHandler;
+        int segmentCount = 1;
+        while (segmentCount < concurrencyLevel && segmentCount * 2 <= maxSize) {
+            segmentCount *= 2;
+        }
+        int segmentCapacity = (maxSize + segmentCount - 1) / segmentCount;
+        @SuppressWarnings("unchecked")
+        Segment<K, V>[] newSegments = (Segment<K, V>[]) new Segment<?, ?>[segmentCount];
+        segments = newSegments;
+        for (int i = 0; i < segmentCount; ++i) {
+            segments[i] = new Segment<>(segmentCapacity);
+        }
+    }
+
+    private Segment<K, V> segmentFor(Object key) {
+        int hash = key.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & (segments.length - 1)];
+    }
+
+    /**
+     * Returns the cached value for the key, loading it if it's missing.
+     *
+     * @throws IllegalStateException if the cache is closed.
+     */
+    public final V get(K key) throws X {
+        Objects.requireNonNull(key, "key is null");
+        Segment<K, V> segment = segmentFor(key);
+        while (true) {
+            CompletableFuture<V> load;
+            boolean loading = false;
+            synchronized (segment) {
+                if (closed) {
+                    throw new IllegalStateException("cache is closed");
+                }
+                V value = segment.values.get(key);
+                if (value != null) {
+                    hits.increment();
+                    return value;
+                }
+                load = segment.loads.get(key);
+                if (load == null) {
+                    segment.loads.put(key, load = new CompletableFuture<>());
+                    loading = true;
+                }
+            }
+            misses.increment();
+            V value;
+            if (loading) {
+                value = load(segment, key, load);
+            } else {
+                try {
+                    value = load.join();
+                } catch (CompletionException e) {
+                    throw SneakyThrow.rethrow(e.getCause());
+                }
+            }
+            if (value != null) {
+                return value;
+            }
+        }
+    }
+
+    /**
+     * @return the loaded value, or {@code null} if the load was discarded.
+     */
+    private V load(Segment<K, V> segment, K key, CompletableFuture<V> load) throws X {
+        long start = System.nanoTime();
+        V value;
+        try {
+            value = Objects.requireNonNull(loader.apply(key), "loader returned null");
+        } catch (Throwable t) {
+            totalLoadNanos.add(System.nanoTime() - start);
+            loadFailures.increment();
+            synchronized (segment) {
+                segment.loads.remove(key, load);
+            }
+            load.completeExceptionally(t);
+            throw t;
+        }
+        totalLoadNanos.add(System.nanoTime() - start);
+        loadSuccesses.increment();
+        boolean discarded;
+        List<V> evicted = null;
+        synchronized (segment) {
+            discarded = !segment.loads.remove(key, load);
+            if (!discarded) {
+                segment.values.put(key, value);
+                evicted = segment.evictOverflow();
+            }
+        }
+        if (discarded) {
+            load.complete(null);
+            destroyQuietly(value);
+            return null;
+        }
+        load.complete(value);
+        if (evicted != null) {
+            for (V evictedValue : evicted) {
+                evictions.increment();
+                destroyQuietly(evictedValue);
+            }
+        }
+        return value;
+    }
+
+    private void destroy(V value) throws X {
+        if (destructor != null) {
+            destructor.accept(value);
+        }
+    }
+
+    /**
+     * Destroys a value that no caller is interested in, passing the destructor exception to the handler.
+     */
+    private void destroyQuietly(V value) {
+        try {
+            destroy(value);
+        } catch (Throwable t) {
+            evictionFailures.increment();
+            if (evictionFailureHandler != null) {
+                evictionFailureHandler.accept(t);
+            }
+        }
+    }
+
+    /**
+     * @return the cached value for the key, or {@code null} if it's not cached.
+     */
+    public final V getIfPresent(K key) {
+        Segment<K, V> segment = segmentFor(Objects.requireNonNull(key, "key is null"));
+        synchronized (segment) {
+            return segment.values.get(key);
+        }
+    }
+
+    /**
+     * Removes the value for the key, if it's cached, and destroys it. A load of the key in flight is discarded.
+     */
+    public final void invalidate(K key) throws X {
+        Segment<K, V> segment = segmentFor(Objects.requireNonNull(key, "key is null"));
+        V value;
+        synchronized (segment) {
+            value = segment.values.remove(key);
+            segment.loads.remove(key);
+        }
+        if (value != null) {
+            destroy(value);
+        }
+    }
+
+    /**
+     * Removes and destroys all cached values, and discards the loads in flight. The first destructor exception
+     * is rethrown after all values are destroyed; subsequent ones are suppressed by it.
+     */
+    public final void invalidateAll() throws X {
+        List<V> removed = new ArrayList<>();
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                removed.addAll(segment.values.values());
+                segment.values.clear();
+                segment.loads.clear();
+            }
+        }
+        Throwable throwable = null;
+        for (V value : removed) {
+            try {
+                destroy(value);
+            } catch (Throwable t) {
+                if (throwable == null) {
+                    throwable = t;
+                } else {
+                    throwable.addSuppressed(t);
+                }
+            }
+        }
+        if (throwable != null) {
+            throw SneakyThrow.rethrow(throwable);
+        }
+    }
+
+    /**
+     * Makes further {@link #get(Object)} calls fail, then {@linkplain #invalidateAll() invalidates} everything.
+     * Values of the loads that are still in flight are destroyed once they're loaded.
+     */
+    @Override
+    public final void close() throws X {
+        closed = true;
+        invalidateAll();
+    }
+
+    public final int size() {
+        int size = 0;
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                size += segment.values.size();
+            }
+        }
+        return size;
+    }
+
+    public final long getHitCount() {
+        return hits.sum();
+    }
+
+    public final long getMissCount() {
+        return misses.sum();
+    }
+
+    public final long getLoadSuccessCount() {
+        return loadSuccesses.sum();
+    }
+
+    public final long getLoadFailureCount() {
+        return loadFailures.sum();
+    }
+
+    public final long getTotalLoadTimeNanos() {
+        return totalLoadNanos.sum();
+    }
+
+    /**
+     * @return the amount of values evicted because of the size limit.
+     */
+    public final long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return the amount of values evicted because of the size limit or discarded after loading
+     * whose destructors threw an exception.
+     */
+    public final long getEvictionFailureCount() {
+        return evictionFailures.sum();
+    }
+
+    private static final class Segment<K, V> {
+
+        private final int capacity;
+
+        private final LinkedHashMap<K, V> values = new LinkedHashMap<>(16, 0.75f, true);
+
+        private final Map<K, CompletableFuture<V>> loads = new HashMap<>();
+
+        private Segment(int capacity) {
+            this.capacity = capacity;
+        }
+
+        /**
+         * @return the evicted values, or {@code null} if there are none.
+         */
+        private List<V> evictOverflow() {
+            List<V> evicted = null;
+            Iterator<V> iterator = values.values().iterator();
+            while (values.size() > capacity) {
+                if (evicted == null) {
+                    evicted = new ArrayList<>(1);
+                }
+                evicted.add(iterator.next());
+                iterator.remove();
+            }
+            return evicted;
+        }
+
+    }
+
+}
@@ -0,0 +1,70 @@
+package org.msyu.javautil.exceptions;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * A reusable try-with-resources guard for a {@link Lock}.
+ *
+ * <p>Unlike {@link ParameterizedAutoCloseable.Locks#lock(Lock)}, which creates a new wrapper on every acquisition,
+ * a guard is obtained once per lock and then re-armed by each of its locking methods, which return the guard itself.
+ * A guard holds no state besides the lock, so a single instance can be shared by all threads that use the lock,
+ * and acquiring and releasing the lock through it allocates nothing.</p>
+ *
+ * <pre>{@code
+ * private final LockGuard guard = Locks.guard(lock);
+ * ...
+ * try (LockGuard g = guard.lock()) {
+ *     // critical section
+ * }
+ * }</pre>
+ *
+ * <p>{@link #tryLock(long, TimeUnit)} returns {@code null} if the lock was not acquired.
+ * try-with-resources does not close {@code null} resources, so check the result inside the block.</p>
+ */
+public final class LockGuard implements ParameterizedAutoCloseable<RuntimeException> {
+
+    private final Lock lock;
+
+    /**
+     * @throws NullPointerException if {@code lock == null}.
+     */
+    public LockGuard(Lock lock) {
+        this.lock = Objects.requireNonNull(lock, "lock is null");
+    }
+
+    public final Lock getLock() {
+        return lock;
+    }
+
+    public final LockGuard lock() {
+        lock.lock();
+        return this;
+    }
+
+    public final LockGuard lockInterruptibly() throws InterruptedException {
+        lock.lockInterruptibly();
+        return this;
+    }
+
+    /**
+     * @return this guard if the lock was acquired, {@code null} otherwise.
+     */
+    public final LockGuard tryLock() {
+        return lock.tryLock() ? this : null;
+    }
+
+    /**
+     * @return this guard if the lock was acquired, {@code null} otherwise.
+     */
+    public final LockGuard tryLock(long time, TimeUnit unit) throws InterruptedException {
+        return lock.tryLock(time, unit) ? this : null;
+    }
+
+    @Override
+    public final void close() {
+        lock.unlock();
+    }
+
+}
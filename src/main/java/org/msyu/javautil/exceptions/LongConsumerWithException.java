@@ -0,0 +1,21 @@
+package org.msyu.javautil.exceptions;
+
+/**
+ * A {@link ConsumerWithException} specialized for a {@code long} input.
+ */
+@FunctionalInterface
+public interface LongConsumerWithException<X extends Exception> {
+
+    void accept(long input) throws X;
+
+    default ConsumerWithException<Long, X> boxed() {
+        return this::accept;
+    }
+
+    static <X extends Exception> LongConsumerWithException<X> unboxed(
+            ConsumerWithException<? super Long, ? extends X> consumer
+    ) {
+        return consumer::accept;
+    }
+
+}
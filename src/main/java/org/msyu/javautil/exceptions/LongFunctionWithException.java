@@ -0,0 +1,21 @@
+package org.msyu.javautil.exceptions;
+
+/**
+ * A {@link FunctionWithException} specialized for a {@code long} input.
+ */
+@FunctionalInterface
+public interface LongFunctionWithException<O, X extends Exception> {
+
+    O apply(long input) throws X;
+
+    default FunctionWithException<Long, O, X> boxed() {
+        return this::apply;
+    }
+
+    static <O, X extends Exception> LongFunctionWithException<O, X> unboxed(
+            FunctionWithException<? super Long, ? extends O, ? extends X> function
+    ) {
+        return function::apply;
+    }
+
+}
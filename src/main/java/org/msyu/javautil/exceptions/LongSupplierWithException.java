@@ -0,0 +1,21 @@
+package org.msyu.javautil.exceptions;
+
+/**
+ * A {@link SupplierWithException} specialized for a {@code long} output.
+ */
+@FunctionalInterface
+public interface LongSupplierWithException<X extends Exception> {
+
+    long getAsLong() throws X;
+
+    default SupplierWithException<Long, X> boxed() {
+        return this::getAsLong;
+    }
+
+    static <X extends Exception> LongSupplierWithException<X> unboxed(
+            SupplierWithException<Long, ? extends X> supplier
+    ) {
+        return supplier::get;
+    }
+
+}
@@ -0,0 +1,21 @@
+package org.msyu.javautil.exceptions;
+
+/**
+ * A {@link FunctionWithException} specialized for a {@code long} input and a {@code double} output.
+ */
+@FunctionalInterface
+public interface LongToDoubleFunctionWithException<X extends Exception> {
+
+    double applyAsDouble(long input) throws X;
+
+    default FunctionWithException<Long, Double, X> boxed() {
+        return this::applyAsDouble;
+    }
+
+    static <X extends Exception> LongToDoubleFunctionWithException<X> unboxed(
+            FunctionWithException<? super Long, Double, ? extends X> function
+    ) {
+        return function::apply;
+    }
+
+}
@@ -0,0 +1,21 @@
+package org.msyu.javautil.exceptions;
+
+/**
+ * A {@link FunctionWithException} specialized for a {@code long} input and an {@code int} output.
+ */
+@FunctionalInterface
+public interface LongToIntFunctionWithException<X extends Exception> {
+
+    int applyAsInt(long input) throws X;
+
+    default FunctionWithException<Long, Integer, X> boxed() {
+        return this::applyAsInt;
+    }
+
+    static <X extends Exception> LongToIntFunctionWithException<X> unboxed(
+            FunctionWithException<? super Long, Integer, ? extends X> function
+    ) {
+        return function::apply;
+    }
+
+}
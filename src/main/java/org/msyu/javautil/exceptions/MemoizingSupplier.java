@@ -0,0 +1,36 @@
+package org.msyu.javautil.exceptions;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+final class MemoizingSupplier<O, X extends Exception> implements SupplierWithException<O, X> {
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private SupplierWithException<? extends O, ? extends X> delegate;
+
+    private volatile boolean computed;
+
+    private O value;
+
+    MemoizingSupplier(SupplierWithException<? extends O, ? extends X> delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public final O get() throws X {
+        if (!computed) {
+            lock.lock();
+            try {
+                if (!computed) {
+                    value = delegate.get();
+                    computed = true;
+                    delegate = null;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        return value;
+    }
+
+}
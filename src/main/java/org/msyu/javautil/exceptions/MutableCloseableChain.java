@@ -0,0 +1,179 @@
+package org.msyu.javautil.exceptions;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A mutable, array-backed counterpart of {@link CloseableChain}.
+ *
+ * <p>Outputs and destructors of the links are kept in parallel growable arrays instead of a linked list of
+ * immutable nodes, so adding a link allocates nothing once the arrays are big enough.
+ * Closing runs the destructors in reverse order with the same exception suppression rules as
+ * {@link CloseableChain#close(CloseableChain)} and {@link CloseableChain#close(CloseableChain, Throwable)},
+ * and leaves the chain empty and ready to be reused. This makes it possible to pool chain instances.</p>
+ *
+ * <p>Since the chain is not parameterized by its last output, the input of each constructor is passed explicitly,
+ * and the output is returned from the chaining methods.</p>
+ *
+ * <p>Instances are not thread-safe.</p>
+ */
+public final class MutableCloseableChain<C extends Exception> implements ParameterizedAutoCloseable<C> {
+
+    private static final int DEFAULT_CAPACITY = 8;
+
+    public static <C extends Exception> MutableCloseableChain<C> newMutableCloseableChain() {
+        return new MutableCloseableChain<>(DEFAULT_CAPACITY);
+    }
+
+    private Object[] outputs;
+
+    private ConsumerWithException<Object, ?>[] destructors;
+
+    private int size;
+
+    /**
+     * @throws IllegalArgumentException if {@code initialCapacity < 0}.
+     */
+    public MutableCloseableChain(int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("initial capacity is negative: " + initialCapacity);
+        }
+        outputs = new Object[initialCapacity];
+        @SuppressWarnings("unchecked")
+        ConsumerWithException<Object, ?>[] newDestructors =
+                (ConsumerWithException<Object, ?>[]) new ConsumerWithException<?, ?>[initialCapacity];
+        destructors = newDestructors;
+    }
+
+    public final <I, O, X extends Exception>
+    O chain(
+            I input,
+            FunctionWithException<? super I, O, X> constructor,
+            ConsumerWithException<? super O, ? extends C> destructor
+    ) throws X {
+        O output;
+        try {
+            output = constructor.apply(input);
+        } catch (Throwable x) {
+            close(x);
+            throw x;
+        }
+        append(output, destructor);
+        return output;
+    }
+
+    public final <I, X extends Exception>
+    I chainEffects(
+            I input,
+            ConsumerWithException<? super I, X> constructor,
+            ConsumerWithException<? super I, ? extends C> destructor
+    ) throws X {
+        try {
+            constructor.accept(input);
+        } catch (Throwable x) {
+            close(x);
+            throw x;
+        }
+        append(input, destructor);
+        return input;
+    }
+
+    @SuppressWarnings("unchecked")
+    final <O> void append(O output, ConsumerWithException<? super O, ? extends C> destructor) {
+        if (size == outputs.length) {
+            int newCapacity = Math.max(DEFAULT_CAPACITY, size * 2);
+            outputs = Arrays.copyOf(outputs, newCapacity);
+            destructors = Arrays.copyOf(destructors, newCapacity);
+        }
+        outputs[size] = output;
+        destructors[size] = (ConsumerWithException<Object, ?>) destructor;
+        ++size;
+    }
+
+    /**
+     * @return the amount of links in this chain.
+     */
+    public final int size() {
+        return size;
+    }
+
+    /**
+     * Forgets all links without closing them, leaving the chain empty and ready to be reused.
+     */
+    public final void reset() {
+        Arrays.fill(outputs, 0, size, null);
+        Arrays.fill(destructors, 0, size, null);
+        size = 0;
+    }
+
+    /**
+     * Closes all links in reverse order. The first exception is rethrown; subsequent ones are suppressed by it.
+     * The chain is left empty and ready to be reused.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public final void close() throws C {
+        Throwable throwable = null;
+        while (size > 0) {
+            try {
+                closeLast();
+            } catch (Throwable t) {
+                if (throwable == null) {
+                    throwable = t;
+                } else {
+                    throwable.addSuppressed(t);
+                }
+            }
+        }
+        if (throwable != null) {
+            throw (C) throwable;
+        }
+    }
+
+    /**
+     * Closes all links in reverse order, adding any exceptions to the suppressed list of {@code suppressor}.
+     * The chain is left empty and ready to be reused.
+     *
+     * @throws NullPointerException if {@code suppressor == null}.
+     */
+    public final void close(Throwable suppressor) {
+        Objects.requireNonNull(suppressor, "suppressor is null");
+        while (size > 0) {
+            try {
+                closeLast();
+            } catch (Throwable t) {
+                suppressor.addSuppressed(t);
+            }
+        }
+    }
+
+    /**
+     * Closes all links in reverse order like {@link #close(Throwable)}, but gathers the exceptions in
+     * {@code collector} instead of suppressing them right away.
+     * The chain is left empty and ready to be reused.
+     *
+     * @throws NullPointerException if {@code collector == null}.
+     */
+    public final void close(SuppressionCollector collector) {
+        Objects.requireNonNull(collector, "collector is null");
+        while (size > 0) {
+            try {
+                closeLast();
+            } catch (Throwable t) {
+                collector.add(t);
+            }
+        }
+    }
+
+    private void closeLast() throws Exception {
+        int index = --size;
+        Object output = outputs[index];
+        ConsumerWithException<Object, ?> destructor = destructors[index];
+        outputs[index] = null;
+        destructors[index] = null;
+        if (output != null && destructor != null) {
+            destructor.accept(output);
+        }
+    }
+
+}
@@ -0,0 +1,277 @@
+package org.msyu.javautil.exceptions;
+
+import java.util.Objects;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Predicate;
+
+/**
+ * A bounded pool of expensive objects, which are returned to the pool instead of being destroyed when
+ * their {@linkplain Lease leases} are closed.
+ *
+ * <p>At most {@code maxSize} objects are leased at the same time; {@link #lease()} blocks until one is available.
+ * Idle objects are kept in a lock-free array of slots, and each thread starts looking for a free or an occupied
+ * slot at its own position, so that threads on different cores rarely contend for the same slot.
+ * Every lease is a separate single-use handle, so closing a lease a second time can't return an object
+ * that has since been leased to someone else.</p>
+ *
+ * <p>When a lease is closed, the object is validated and returned to the pool. It's destroyed instead if
+ * the validation fails, if the lease was {@linkplain Lease#invalidate() invalidated}, or if the pool is closed;
+ * the destructor's exception, if any, is thrown from {@link Lease#close()}.
+ * Objects that have been idle for longer than the maximum idle time are destroyed by {@link #evictIdle()},
+ * which is meant to be called periodically.</p>
+ *
+ * <p>A lease is a {@link ParameterizedAutoCloseable}, so it can be used in try-with-resources,
+ * or as a {@link CloseableChain} link: {@code chain.chain(__ -> pool.lease(), ObjectPool.Lease::close)}.</p>
+ */
+public final class ObjectPool<T, X extends Exception> implements ParameterizedAutoCloseable<X> {
+
+    private final SupplierWithException<? extends T, ? extends X> factory;
+
+    private final ConsumerWithException<? super T, ? extends X> destructor;
+
+    private final Predicate<? super T> validator;
+
+    private final long maxIdleNanos;
+
+    private final Semaphore permits;
+
+    private final AtomicReferenceArray<Pooled<T>> idle;
+
+    private volatile boolean closed;
+
+    /**
+     * @param validator checks whether a returned object may be reused; {@code null} means it always may.
+     *
+     * @throws NullPointerException if {@code factory}, {@code destructor} or {@code unit} is {@code null}.
+     * @throws IllegalArgumentException if {@code maxSize <= 0} or {@code maxIdleTime < 0}.
+     */
+    public ObjectPool(
+            SupplierWithException<? extends T, ? extends X> factory,
+            ConsumerWithException<? super T, ? extends X> destructor,
+            Predicate<? super T> validator,
+            int maxSize,
+            long maxIdleTime,
+            TimeUnit unit
+    ) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("max size is not positive: " + maxSize);
+        }
+        if (maxIdleTime < 0) {
+            throw new IllegalArgumentException("max idle time is negative: " + maxIdleTime);
+        }
+        this.factory = Objects.requireNonNull(factory, "factory is null");
+        this.destructor = Objects.requireNonNull(destructor, "destructor is null");
+        this.validator = validator;
+        this.maxIdleNanos = Objects.requireNonNull(unit, "unit is null").toNanos(maxIdleTime);
+        this.permits = new Semaphore(maxSize);
+        this.idle = new AtomicReferenceArray<>(maxSize);
+    }
+
+    /**
+     * Leases an idle object, or creates a new one if there are none, waiting while the pool is exhausted.
+     *
+     * @throws IllegalStateException if the pool is closed.
+     */
+    public final Lease<T, X> lease() throws X, InterruptedException {
+        permits.acquire();
+        return leaseWithPermit();
+    }
+
+    /**
+     * Same as {@link #lease()}, but waits for at most the specified time.
+     *
+     * @return the lease, or {@code null} if the pool stayed exhausted for the whole time.
+     *
+     * @throws IllegalStateException if the pool is closed.
+     */
+    public final Lease<T, X> tryLease(long timeout, TimeUnit unit) throws X, InterruptedException {
+        if (!permits.tryAcquire(timeout, unit)) {
+            return null;
+        }
+        return leaseWithPermit();
+    }
+
+    private Lease<T, X> leaseWithPermit() throws X {
+        try {
+            if (closed) {
+                throw new IllegalStateException("pool is closed");
+            }
+            Pooled<T> pooled = takeIdle();
+            if (pooled == null) {
+                pooled = new Pooled<>(factory.get());
+            }
+            return new Lease<>(this, pooled);
+        } catch (Throwable t) {
+            permits.release();
+            throw t;
+        }
+    }
+
+    private int startSlot() {
+        int hash = (int) Thread.currentThread().getId() * 0x9E3779B9;
+        return (hash >>> 1) % idle.length();
+    }
+
+    private Pooled<T> takeIdle() {
+        int length = idle.length();
+        for (int i = 0, slot = startSlot(); i < length; ++i, slot = slot + 1 == length ? 0 : slot + 1) {
+            Pooled<T> pooled = idle.get(slot);
+            if (pooled != null && idle.compareAndSet(slot, pooled, null)) {
+                return pooled;
+            }
+        }
+        return null;
+    }
+
+    private boolean offerIdle(Pooled<T> pooled) {
+        pooled.idleSinceNanos = System.nanoTime();
+        int length = idle.length();
+        for (int i = 0, slot = startSlot(); i < length; ++i, slot = slot + 1 == length ? 0 : slot + 1) {
+            if (idle.get(slot) == null && idle.compareAndSet(slot, null, pooled)) {
+                if (closed && idle.compareAndSet(slot, pooled, null)) {
+                    // the pool was closed concurrently and may have missed this slot
+                    return false;
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void giveBack(Pooled<T> pooled, boolean invalid) throws X {
+        boolean kept = false;
+        try {
+            kept = !invalid && !closed && (validator == null || validator.test(pooled.object)) && offerIdle(pooled);
+        } finally {
+            try {
+                if (!kept) {
+                    destructor.accept(pooled.object);
+                }
+            } finally {
+                permits.release();
+            }
+        }
+    }
+
+    /**
+     * @return the amount of idle objects in the pool.
+     */
+    public final int getIdleCount() {
+        int count = 0;
+        for (int i = 0; i < idle.length(); ++i) {
+            if (idle.get(i) != null) {
+                ++count;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Destroys the objects that have been idle for longer than the maximum idle time.
+     * The first destructor exception is rethrown after all the stale objects are destroyed;
+     * subsequent ones are suppressed by it.
+     */
+    public final void evictIdle() throws X {
+        destroyIdle(false);
+    }
+
+    /**
+     * Destroys all idle objects and prevents further leasing.
+     * Objects that are currently leased are destroyed when their leases are closed.
+     * The first destructor exception is rethrown after all the idle objects are destroyed;
+     * subsequent ones are suppressed by it.
+     */
+    @Override
+    public final void close() throws X {
+        closed = true;
+        destroyIdle(true);
+    }
+
+    private void destroyIdle(boolean all) throws X {
+        long now = System.nanoTime();
+        Throwable throwable = null;
+        for (int i = 0; i < idle.length(); ++i) {
+            Pooled<T> pooled = idle.get(i);
+            if (pooled != null && (all || now - pooled.idleSinceNanos >= maxIdleNanos) && idle.compareAndSet(i, pooled, null)) {
+                try {
+                    destructor.accept(pooled.object);
+                } catch (Throwable t) {
+                    if (throwable == null) {
+                        throwable = t;
+                    } else {
+                        throwable.addSuppressed(t);
+                    }
+                }
+            }
+        }
+        if (throwable != null) {
+            throw (X) throwable;
+        }
+    }
+
+    private static final class Pooled<T> {
+
+        final T object;
+
+        long idleSinceNanos;
+
+        Pooled(T object) {
+            this.object = object;
+        }
+
+    }
+
+    /**
+     * A lease of a pooled object. Closing the lease returns the object to the pool.
+     *
+     * <p>Each call to {@link #lease()} returns a new lease, which stays closed once it's closed,
+     * even if its object is leased again. A lease must not be shared between threads without synchronization.</p>
+     */
+    public static final class Lease<T, X extends Exception> implements ParameterizedAutoCloseable<X> {
+
+        private final ObjectPool<T, X> pool;
+
+        private Pooled<T> pooled;
+
+        private boolean invalid;
+
+        private Lease(ObjectPool<T, X> pool, Pooled<T> pooled) {
+            this.pool = pool;
+            this.pooled = pooled;
+        }
+
+        /**
+         * @throws IllegalStateException if the lease is closed.
+         */
+        public final T get() {
+            Pooled<T> current = pooled;
+            if (current == null) {
+                throw new IllegalStateException("lease is closed");
+            }
+            return current.object;
+        }
+
+        /**
+         * Makes {@link #close()} destroy the object instead of returning it to the pool.
+         */
+        public final void invalidate() {
+            invalid = true;
+        }
+
+        /**
+         * Returns the object to the pool, or destroys it. Closing an already closed lease does nothing.
+         */
+        @Override
+        public final void close() throws X {
+            Pooled<T> current = pooled;
+            if (current != null) {
+                pooled = null;
+                pool.giveBack(current, invalid);
+            }
+        }
+
+    }
+
+}
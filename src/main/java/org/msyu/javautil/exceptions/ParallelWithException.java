@@ -0,0 +1,206 @@
+package org.msyu.javautil.exceptions;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Runs a {@link ConsumerWithException} or a {@link FunctionWithException} over many items in parallel
+ * on a {@link ForkJoinPool}, rethrowing the original exceptions instead of wrapping them.
+ *
+ * <p>The first exception thrown by any of the items is rethrown after all the started work is finished;
+ * exceptions thrown by subsequent items are suppressed by it. In the fail-fast mode, items that haven't been
+ * started yet are skipped as soon as any item fails.</p>
+ */
+public final class ParallelWithException {
+
+    private ParallelWithException() {
+    }
+
+    /**
+     * Same as {@link #forEach(Spliterator, ConsumerWithException, boolean, ForkJoinPool)}
+     * using the collection's spliterator and the common pool.
+     */
+    public static <T, X extends Exception> void forEach(
+            Collection<? extends T> items,
+            ConsumerWithException<? super T, ? extends X> action,
+            boolean failFast
+    ) throws X {
+        forEach(items.spliterator(), action, failFast, ForkJoinPool.commonPool());
+    }
+
+    public static <T, X extends Exception> void forEach(
+            Spliterator<? extends T> items,
+            ConsumerWithException<? super T, ? extends X> action,
+            boolean failFast,
+            ForkJoinPool pool
+    ) throws X {
+        Objects.requireNonNull(action, "action is null");
+        Failures failures = new Failures(failFast);
+        pool.invoke(new ForEachTask<T>(items, action, failures, splitThreshold(items.estimateSize(), pool)));
+        failures.rethrow();
+    }
+
+    /**
+     * Same as {@link #map(List, FunctionWithException, boolean, ForkJoinPool)} using the common pool.
+     */
+    public static <I, O, X extends Exception> List<O> map(
+            List<? extends I> items,
+            FunctionWithException<? super I, ? extends O, ? extends X> function,
+            boolean failFast
+    ) throws X {
+        return map(items, function, failFast, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @return the results of applying the function to the items, in the order of the items.
+     */
+    @SuppressWarnings("unchecked")
+    public static <I, O, X extends Exception> List<O> map(
+            List<? extends I> items,
+            FunctionWithException<? super I, ? extends O, ? extends X> function,
+            boolean failFast,
+            ForkJoinPool pool
+    ) throws X {
+        Objects.requireNonNull(function, "function is null");
+        Object[] inputs = items.toArray();
+        Object[] outputs = new Object[inputs.length];
+        Failures failures = new Failures(failFast);
+        pool.invoke(new MapTask(inputs, outputs, 0, inputs.length, function, failures, splitThreshold(inputs.length, pool)));
+        failures.rethrow();
+        return new ArrayList<>((List<O>) Arrays.asList(outputs));
+    }
+
+    private static long splitThreshold(long size, ForkJoinPool pool) {
+        return Math.max(1, size / ((long) pool.getParallelism() << 2));
+    }
+
+    private static final class Failures {
+
+        private final boolean failFast;
+
+        private volatile boolean failed;
+
+        private Throwable throwable;
+
+        private Failures(boolean failFast) {
+            this.failFast = failFast;
+        }
+
+        private boolean shouldStop() {
+            return failFast && failed;
+        }
+
+        private synchronized void add(Throwable t) {
+            if (throwable == null) {
+                throwable = t;
+                failed = true;
+            } else {
+                throwable.addSuppressed(t);
+            }
+        }
+
+        private synchronized void rethrow() {
+            if (throwable != null) {
+                throw SneakyThrow.rethrow(throwable);
+            }
+        }
+
+    }
+
+    private static final class ForEachTask<T> extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Spliterator<? extends T> items;
+
+        private final ConsumerWithException<? super T, ?> action;
+
+        private final Failures failures;
+
+        private final long threshold;
+
+        private ForEachTask(Spliterator<? extends T> items, ConsumerWithException<? super T, ?> action, Failures failures, long threshold) {
+            this.items = items;
+            this.action = action;
+            this.failures = failures;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            Spliterator<? extends T> prefix;
+            if (items.estimateSize() > threshold && (prefix = items.trySplit()) != null) {
+                invokeAll(new ForEachTask<T>(prefix, action, failures, threshold), new ForEachTask<T>(items, action, failures, threshold));
+                return;
+            }
+            while (!failures.shouldStop() && items.tryAdvance(this::apply)) {
+            }
+        }
+
+        private void apply(T item) {
+            try {
+                action.accept(item);
+            } catch (Throwable t) {
+                failures.add(t);
+            }
+        }
+
+    }
+
+    private static final class MapTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Object[] inputs;
+
+        private final Object[] outputs;
+
+        private final int from;
+
+        private final int to;
+
+        private final FunctionWithException<Object, ?, ?> function;
+
+        private final Failures failures;
+
+        private final long threshold;
+
+        @SuppressWarnings("unchecked")
+        private MapTask(Object[] inputs, Object[] outputs, int from, int to, FunctionWithException<?, ?, ?> function, Failures failures, long threshold) {
+            this.inputs = inputs;
+            this.outputs = outputs;
+            this.from = from;
+            this.to = to;
+            this.function = (FunctionWithException<Object, ?, ?>) function;
+            this.failures = failures;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > threshold) {
+                int middle = (from + to) >>> 1;
+                invokeAll(
+                        new MapTask(inputs, outputs, from, middle, function, failures, threshold),
+                        new MapTask(inputs, outputs, middle, to, function, failures, threshold)
+                );
+                return;
+            }
+            for (int i = from; i < to && !failures.shouldStop(); ++i) {
+                try {
+                    outputs[i] = function.apply(inputs[i]);
+                } catch (Throwable t) {
+                    failures.add(t);
+                }
+            }
+        }
+
+    }
+
+}
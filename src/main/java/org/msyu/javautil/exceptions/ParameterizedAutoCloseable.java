@@ -1,6 +1,7 @@
 package org.msyu.javautil.exceptions;
 
 import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
 
 public interface ParameterizedAutoCloseable<X extends Exception> extends AutoCloseable {
 
@@ -29,6 +30,27 @@ public interface ParameterizedAutoCloseable<X extends Exception> extends AutoClo
             return wrap(lock, Lock::lock, Lock::unlock);
         }
 
+        /**
+         * @see LockGuard
+         */
+        static LockGuard guard(Lock lock) {
+            return new LockGuard(lock);
+        }
+
+        /**
+         * @see LockGuard
+         */
+        static LockGuard readGuard(ReadWriteLock lock) {
+            return new LockGuard(lock.readLock());
+        }
+
+        /**
+         * @see LockGuard
+         */
+        static LockGuard writeGuard(ReadWriteLock lock) {
+            return new LockGuard(lock.writeLock());
+        }
+
     }
 
 }
@@ -0,0 +1,239 @@
+package org.msyu.javautil.exceptions;
+
+import java.util.Objects;
+
+/**
+ * A counterpart of {@link CloseableChain} whose links are drawn from a thread-local pool, and are returned to the
+ * pool of the closing thread when the chain is closed. This removes the per-link allocation of short-lived chains.
+ *
+ * <p>Unlike the links of a {@code CloseableChain}, the links of this chain are mutable, and so must not be shared
+ * between threads without synchronization. A chain must be closed exactly once, and no link of it may be used
+ * afterwards; it also mustn't be branched, i.e. each link may be chained from only once.
+ * Using a closed link throws {@link IllegalStateException} until the link is reused.
+ * If assertions are enabled for this class, closed links are never reused, so every use after close is detected.</p>
+ *
+ * <p>Destructor exceptions are handled the same way as by {@link CloseableChain#close(CloseableChain)} and
+ * {@link CloseableChain#close(CloseableChain, Throwable)}. Sampled chains are tracked by the {@link LeakDetector}.</p>
+ */
+public final class RecyclingCloseableChain<I, C extends Exception> {
+
+    private static final LinkPool DEFAULT_POOL = new LinkPool(256, RecyclingCloseableChain.class.desiredAssertionStatus());
+
+    public static <C extends Exception> RecyclingCloseableChain<Void, C> newRecyclingCloseableChain() {
+        return newRecyclingCloseableChain(DEFAULT_POOL);
+    }
+
+    static <C extends Exception> RecyclingCloseableChain<Void, C> newRecyclingCloseableChain(LinkPool pool) {
+        return newLink(pool, null, LeakDetector.newProbe(), null);
+    }
+
+    private I output;
+
+    /**
+     * For the root of a chain, this is the {@link LeakDetector} probe, or {@code null} if the chain isn't sampled.
+     */
+    private ConsumerWithException<? super I, ? extends C> destructor;
+
+    private RecyclingCloseableChain<?, ? extends C> prev;
+
+    /**
+     * Inherited from {@link #prev}.
+     */
+    private LinkPool pool;
+
+    /**
+     * Set when the link is closed, and cleared when it's reused.
+     */
+    private boolean closed;
+
+    private RecyclingCloseableChain() {
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <I, C extends Exception> RecyclingCloseableChain<I, C> newLink(
+            LinkPool pool,
+            I output,
+            ConsumerWithException<? super I, ? extends C> destructor,
+            RecyclingCloseableChain<?, ? extends C> prev
+    ) {
+        RecyclingCloseableChain<I, C> link = (RecyclingCloseableChain<I, C>) pool.acquire();
+        link.output = output;
+        link.destructor = destructor;
+        link.prev = prev;
+        link.pool = pool;
+        link.closed = false;
+        return link;
+    }
+
+    public final <O, X extends Exception>
+    RecyclingCloseableChain<O, C> chain(
+            FunctionWithException<? super I, O, X> constructor,
+            ConsumerWithException<? super O, ? extends C> destructor
+    ) throws X {
+        checkNotClosed();
+        if (prev == null) {
+            LeakDetector.armed(this.destructor);
+        }
+        O newOutput;
+        try {
+            newOutput = constructor.apply(output);
+        } catch (Throwable x) {
+            close(this, x);
+            throw x;
+        }
+        return newLink(pool, newOutput, destructor, this);
+    }
+
+    public final <X extends Exception>
+    RecyclingCloseableChain<I, C> chainEffects(
+            ConsumerWithException<? super I, X> constructor,
+            ConsumerWithException<? super I, ? extends C> destructor
+    ) throws X {
+        checkNotClosed();
+        if (prev == null) {
+            LeakDetector.armed(this.destructor);
+        }
+        try {
+            constructor.accept(output);
+        } catch (Throwable x) {
+            close(this, x);
+            throw x;
+        }
+        return newLink(pool, output, destructor, this);
+    }
+
+    public final I getOutput() {
+        checkNotClosed();
+        return output;
+    }
+
+    private void checkNotClosed() {
+        if (closed) {
+            throw new IllegalStateException("the chain link was used after the chain was closed");
+        }
+    }
+
+    /**
+     * @return the exception thrown by the destructor, or {@code null} if there was none.
+     */
+    private Throwable closeThis() {
+        checkNotClosed();
+        if (output != null && destructor != null) {
+            try {
+                destructor.accept(output);
+            } catch (Throwable t) {
+                return t;
+            }
+        } else if (prev == null) {
+            LeakDetector.closed(destructor);
+        }
+        return null;
+    }
+
+    /**
+     * Releases this link to the pool of the current thread.
+     *
+     * @return the previous link.
+     */
+    private RecyclingCloseableChain<?, ? extends C> release() {
+        RecyclingCloseableChain<?, ? extends C> link = prev;
+        LinkPool linkPool = pool;
+        output = null;
+        destructor = null;
+        prev = null;
+        pool = null;
+        closed = true;
+        linkPool.release(this);
+        return link;
+    }
+
+    /**
+     * @throws NullPointerException if {@code suppressor == null}.
+     * @throws IllegalStateException if the chain is already closed.
+     */
+    public static void close(RecyclingCloseableChain<?, ?> chain, Throwable suppressor) {
+        Objects.requireNonNull(suppressor, "suppressor is null");
+        while (chain != null) {
+            Throwable t = chain.closeThis();
+            if (t != null) {
+                suppressor.addSuppressed(t);
+            }
+            chain = chain.release();
+        }
+    }
+
+    /**
+     * @throws IllegalStateException if the chain is already closed.
+     */
+    @SuppressWarnings("unchecked")
+    public static <C extends Exception> void close(RecyclingCloseableChain<?, C> chain) throws C {
+        Throwable throwable = null;
+        RecyclingCloseableChain<?, ? extends C> link = chain;
+        while (link != null) {
+            Throwable t = link.closeThis();
+            if (t != null) {
+                if (throwable == null) {
+                    throwable = t;
+                } else {
+                    throwable.addSuppressed(t);
+                }
+            }
+            link = link.release();
+        }
+        if (throwable != null) {
+            throw (C) throwable;
+        }
+    }
+
+    /**
+     * Thread-local stacks of free links.
+     */
+    static final class LinkPool {
+
+        private final boolean poisonClosedLinks;
+
+        private final ThreadLocal<Links> links;
+
+        /**
+         * @param poisonClosedLinks whether closed links are discarded instead of being reused.
+         */
+        LinkPool(int capacity, boolean poisonClosedLinks) {
+            this.poisonClosedLinks = poisonClosedLinks;
+            this.links = ThreadLocal.withInitial(() -> new Links(capacity));
+        }
+
+        private RecyclingCloseableChain<?, ?> acquire() {
+            Links free = links.get();
+            if (free.size == 0) {
+                return new RecyclingCloseableChain<>();
+            }
+            RecyclingCloseableChain<?, ?> link = free.stack[--free.size];
+            free.stack[free.size] = null;
+            return link;
+        }
+
+        private void release(RecyclingCloseableChain<?, ?> link) {
+            if (poisonClosedLinks) {
+                return;
+            }
+            Links free = links.get();
+            if (free.size < free.stack.length) {
+                free.stack[free.size++] = link;
+            }
+        }
+
+        private static final class Links {
+
+            final RecyclingCloseableChain<?, ?>[] stack;
+
+            int size;
+
+            Links(int capacity) {
+                stack = new RecyclingCloseableChain<?, ?>[capacity];
+            }
+
+        }
+
+    }
+
+}
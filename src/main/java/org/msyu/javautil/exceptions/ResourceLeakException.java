@@ -0,0 +1,15 @@
+package org.msyu.javautil.exceptions;
+
+/**
+ * Reported by {@link LeakDetector} when a tracked resource is garbage collected without being closed.
+ * Its stack trace is the one of the place where the resource was created.
+ */
+public class ResourceLeakException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ResourceLeakException(String message) {
+        super(message);
+    }
+
+}
@@ -0,0 +1,43 @@
+package org.msyu.javautil.exceptions;
+
+/**
+ * Receives timing and failure reports from the {@link CloseableChain}s and {@link AutoCloseableWrapper}s
+ * it's installed on.
+ *
+ * <p>The methods are called synchronously on the thread that constructs or destroys the resource,
+ * possibly from several threads at once, so implementations must be thread-safe and should be cheap.
+ * Durations are measured with {@link System#nanoTime()}. Chains and wrappers without a listener
+ * don't measure anything.</p>
+ *
+ * @see HistogramResourceListener
+ */
+public interface ResourceListener {
+
+    /**
+     * @param output the output of the new chain link.
+     */
+    default void constructed(Object output, long nanos) {
+    }
+
+    default void constructionFailed(Throwable failure, long nanos) {
+    }
+
+    /**
+     * @param resource the output of the chain link, or the wrapper.
+     */
+    default void destroyed(Object resource, long nanos) {
+    }
+
+    /**
+     * @param resource the output of the chain link, or the wrapper.
+     */
+    default void destructionFailed(Object resource, Throwable failure, long nanos) {
+    }
+
+    /**
+     * Called when a chain suppresses an exception thrown while closing it.
+     */
+    default void suppressed(Throwable primary, Throwable suppressed) {
+    }
+
+}
@@ -0,0 +1,188 @@
+package org.msyu.javautil.exceptions;
+
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A structured scope that ties the lifetime of a {@link CloseableChain} to a group of subtasks using its output.
+ *
+ * <p>Subtasks are {@linkplain #fork(ConsumerWithException) forked} onto an executor and receive the chain's output.
+ * When a subtask fails, its siblings are cancelled: those that haven't started yet are skipped,
+ * and the running ones are interrupted. {@link #close()} waits for all subtasks to finish, then closes the chain.</p>
+ *
+ * <p>The first subtask failure is rethrown from {@code close()}. It suppresses the subsequent subtask failures
+ * (including the ones caused by the cancellation), and then the chain's destructor failures.
+ * If no subtask failed, the chain is closed as by {@link CloseableChain#close(CloseableChain)}.</p>
+ *
+ * <p>The executor decides how cheap the subtasks are. On Java 21 and later,
+ * {@code Executors.newVirtualThreadPerTaskExecutor()} runs each subtask on its own virtual thread,
+ * which makes it practical to fork many thousands of them. The scope waits on a {@link ReentrantLock} rather than
+ * a monitor, so that waiting doesn't pin the carrier thread of a virtual thread.</p>
+ */
+public final class ResourceScope<I, C extends Exception> implements ParameterizedAutoCloseable<C> {
+
+    private final CloseableChain<I, C> chain;
+
+    private final Executor executor;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Signalled when {@link #pending} drops to zero.
+     */
+    private final Condition done = lock.newCondition();
+
+    /**
+     * Threads running subtasks that haven't been cancelled. Guarded by {@link #lock}.
+     */
+    private final Set<Thread> running = new HashSet<>();
+
+    private int pending;
+
+    private Throwable failure;
+
+    private boolean closed;
+
+    /**
+     * @throws NullPointerException if {@code chain == null} or {@code executor == null}.
+     */
+    public ResourceScope(CloseableChain<I, C> chain, Executor executor) {
+        this.chain = Objects.requireNonNull(chain, "chain is null");
+        this.executor = Objects.requireNonNull(executor, "executor is null");
+    }
+
+    public final I getOutput() {
+        return chain.getOutput();
+    }
+
+    /**
+     * Submits a subtask to the executor, unless some subtask has already failed.
+     *
+     * @throws IllegalStateException if the scope is closed.
+     */
+    public final void fork(ConsumerWithException<? super I, ? extends C> subtask) {
+        Objects.requireNonNull(subtask, "subtask is null");
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("scope is closed");
+            }
+            if (failure != null) {
+                return;
+            }
+            ++pending;
+        } finally {
+            lock.unlock();
+        }
+        try {
+            executor.execute(() -> runSubtask(subtask));
+        } catch (RuntimeException | Error e) {
+            lock.lock();
+            try {
+                finished(null);
+            } finally {
+                lock.unlock();
+            }
+            throw e;
+        }
+    }
+
+    private void runSubtask(ConsumerWithException<? super I, ? extends C> subtask) {
+        Thread thread = Thread.currentThread();
+        lock.lock();
+        try {
+            if (failure != null) {
+                finished(null);
+                return;
+            }
+            running.add(thread);
+        } finally {
+            lock.unlock();
+        }
+        Throwable thrown = null;
+        try {
+            subtask.accept(chain.getOutput());
+        } catch (Throwable t) {
+            thrown = t;
+        }
+        boolean cancelled;
+        lock.lock();
+        try {
+            cancelled = !running.remove(thread);
+            finished(thrown);
+        } finally {
+            lock.unlock();
+        }
+        if (cancelled) {
+            // don't leak the cancellation into whatever the thread runs next
+            Thread.interrupted();
+        }
+    }
+
+    /**
+     * Must be called with {@link #lock} held.
+     */
+    private void finished(Throwable thrown) {
+        if (thrown != null) {
+            if (failure == null) {
+                failure = thrown;
+                for (Thread thread : running) {
+                    thread.interrupt();
+                }
+                running.clear();
+            } else {
+                failure.addSuppressed(thrown);
+            }
+        }
+        if (--pending == 0) {
+            done.signalAll();
+        }
+    }
+
+    /**
+     * Waits for all subtasks forked so far to finish.
+     */
+    public final void join() throws InterruptedException {
+        lock.lock();
+        try {
+            while (pending > 0) {
+                done.await();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Prevents further forking, waits for all subtasks to finish, and closes the chain.
+     * Closing an already closed scope does nothing.
+     */
+    @Override
+    public final void close() throws C {
+        Throwable throwable;
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            while (pending > 0) {
+                done.awaitUninterruptibly();
+            }
+            throwable = failure;
+        } finally {
+            lock.unlock();
+        }
+        if (throwable == null) {
+            CloseableChain.close(chain);
+        } else {
+            CloseableChain.close(chain, throwable);
+            throw (C) throwable;
+        }
+    }
+
+}
@@ -0,0 +1,158 @@
+package org.msyu.javautil.exceptions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * An immutable description of how to retry failed calls: which exceptions are retryable, how many attempts to make,
+ * and how long to wait between them.
+ *
+ * <p>When a call finally fails, its exception is thrown with the exceptions of the previous attempts suppressed by it.
+ * If the waiting thread is interrupted, the last exception is thrown right away, and the interrupt flag is kept.</p>
+ *
+ * @param <X> the type of retryable exceptions.
+ */
+public final class RetryPolicy<X extends Exception> {
+
+    private final Class<X> type;
+
+    private final Predicate<? super X> predicate;
+
+    private final int maxAttempts;
+
+    private final long initialDelayNanos;
+
+    private final long maxDelayNanos;
+
+    private final double multiplier;
+
+    private final double jitter;
+
+    private RetryPolicy(Class<X> type, Predicate<? super X> predicate, int maxAttempts, long initialDelayNanos, long maxDelayNanos, double multiplier, double jitter) {
+        this.type = type;
+        this.predicate = predicate;
+        this.maxAttempts = maxAttempts;
+        this.initialDelayNanos = initialDelayNanos;
+        this.maxDelayNanos = maxDelayNanos;
+        this.multiplier = multiplier;
+        this.jitter = jitter;
+    }
+
+    /**
+     * Creates a policy that retries exceptions of the specified type immediately, up to {@code maxAttempts} calls
+     * in total.
+     *
+     * @throws IllegalArgumentException if {@code maxAttempts <= 0}.
+     */
+    public static <X extends Exception> RetryPolicy<X> retryOn(Class<X> type, int maxAttempts) {
+        if (maxAttempts <= 0) {
+            throw new IllegalArgumentException("max attempts is not positive: " + maxAttempts);
+        }
+        return new RetryPolicy<>(Objects.requireNonNull(type, "type is null"), x -> true, maxAttempts, 0, 0, 1, 0);
+    }
+
+    /**
+     * @return a copy of this policy that only retries exceptions that match the predicate.
+     */
+    public final RetryPolicy<X> retryIf(Predicate<? super X> predicate) {
+        Objects.requireNonNull(predicate, "predicate is null");
+        return new RetryPolicy<>(type, predicate, maxAttempts, initialDelayNanos, maxDelayNanos, multiplier, jitter);
+    }
+
+    /**
+     * @return a copy of this policy that waits {@code initialDelay} before the second attempt,
+     * and then multiplies the delay by {@code multiplier} before each subsequent attempt, up to {@code maxDelay}.
+     *
+     * @throws IllegalArgumentException if a delay is negative, or if {@code multiplier < 1}.
+     */
+    public final RetryPolicy<X> withBackoff(long initialDelay, long maxDelay, TimeUnit unit, double multiplier) {
+        if (initialDelay < 0 || maxDelay < 0) {
+            throw new IllegalArgumentException("delay is negative");
+        }
+        if (!(multiplier >= 1)) {
+            throw new IllegalArgumentException("multiplier is less than 1: " + multiplier);
+        }
+        return new RetryPolicy<>(type, predicate, maxAttempts, unit.toNanos(initialDelay), unit.toNanos(maxDelay), multiplier, jitter);
+    }
+
+    /**
+     * @return a copy of this policy that shortens each delay by a random fraction of it, up to {@code jitter}.
+     *
+     * @throws IllegalArgumentException if {@code jitter} is not between 0 and 1.
+     */
+    public final RetryPolicy<X> withJitter(double jitter) {
+        if (!(jitter >= 0 && jitter <= 1)) {
+            throw new IllegalArgumentException("jitter is not between 0 and 1: " + jitter);
+        }
+        return new RetryPolicy<>(type, predicate, maxAttempts, initialDelayNanos, maxDelayNanos, multiplier, jitter);
+    }
+
+    public final int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * Calls the supplier until it succeeds, throws a non-retryable exception, or runs out of attempts.
+     */
+    public final <O, Y extends Exception> O call(SupplierWithException<? extends O, ? extends Y> supplier) throws Y {
+        List<Throwable> previous = null;
+        Throwable throwable = null;
+        double delay = initialDelayNanos;
+        for (int attempt = 1; ; ++attempt) {
+            try {
+                return supplier.get();
+            } catch (Throwable t) {
+                if (throwable != null) {
+                    if (previous == null) {
+                        previous = new ArrayList<>(maxAttempts - 1);
+                    }
+                    previous.add(throwable);
+                }
+                throwable = t;
+            }
+            if (attempt >= maxAttempts || !isRetryable(throwable)) {
+                throw fail(throwable, previous);
+            }
+            if (delay > 0) {
+                long sleepNanos = (long) (delay * (1 - jitter * ThreadLocalRandom.current().nextDouble()));
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw fail(throwable, previous);
+                }
+                delay = Math.min(delay * multiplier, maxDelayNanos);
+            }
+        }
+    }
+
+    private static RuntimeException fail(Throwable throwable, List<Throwable> previous) {
+        if (previous != null) {
+            for (int i = 0; i < previous.size(); ++i) {
+                Throwable t = previous.get(i);
+                // the supplier may throw the same (e.g. preallocated) exception on several attempts
+                if (t != throwable && indexOfSame(previous, t) == i) {
+                    throwable.addSuppressed(t);
+                }
+            }
+        }
+        return SneakyThrow.rethrow(throwable);
+    }
+
+    private static int indexOfSame(List<Throwable> list, Throwable throwable) {
+        for (int i = 0; ; ++i) {
+            if (list.get(i) == throwable) {
+                return i;
+            }
+        }
+    }
+
+    private boolean isRetryable(Throwable throwable) {
+        return type.isInstance(throwable) && predicate.test(type.cast(throwable));
+    }
+
+}
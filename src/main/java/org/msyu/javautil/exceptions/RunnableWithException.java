@@ -1,8 +1,83 @@
 package org.msyu.javautil.exceptions;
 
+import java.util.Objects;
+import java.util.function.Function;
+
 @FunctionalInterface
 public interface RunnableWithException<X extends Exception> {
 
     void run() throws X;
 
+    /**
+     * Adapts {@code runnable} to {@link Runnable}, throwing its checked exceptions as is, without declaring them.
+     */
+    static Runnable sneaky(RunnableWithException<?> runnable) {
+        Objects.requireNonNull(runnable, "runnable is null");
+        return () -> {
+            try {
+                runnable.run();
+            } catch (Exception e) {
+                throw SneakyThrow.rethrow(e);
+            }
+        };
+    }
+
+    /**
+     * Adapts {@code runnable} to {@link Runnable},
+     * wrapping its checked exceptions in {@link java.io.UncheckedIOException} if they are {@link java.io.IOException}s,
+     * or in {@link RuntimeException}s otherwise.
+     * Unchecked exceptions are thrown as is.
+     */
+    static Runnable unchecked(RunnableWithException<?> runnable) {
+        return unchecked(runnable, ExceptionTranslation::toUnchecked);
+    }
+
+    /**
+     * Adapts {@code runnable} to {@link Runnable},
+     * translating its checked exceptions with {@code translator}.
+     * Unchecked exceptions are thrown as is.
+     */
+    static Runnable unchecked(
+            RunnableWithException<?> runnable,
+            Function<? super Exception, ? extends RuntimeException> translator
+    ) {
+        Objects.requireNonNull(runnable, "runnable is null");
+        Objects.requireNonNull(translator, "translator is null");
+        return () -> {
+            try {
+                runnable.run();
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw translator.apply(e);
+            }
+        };
+    }
+
+    /**
+     * Returns a runnable that translates the checked exceptions of {@code runnable} with {@code translator}.
+     * Unchecked exceptions, and checked exceptions that aren't instances of {@code type}
+     * (such as ones thrown sneakily), are thrown as is.
+     *
+     * @throws NullPointerException if {@code runnable}, {@code type} or {@code translator} is {@code null}.
+     */
+    static <X extends Exception, Y extends Exception> RunnableWithException<Y> mapChecked(
+            RunnableWithException<? extends X> runnable,
+            Class<X> type,
+            Function<? super X, ? extends Y> translator
+    ) {
+        Objects.requireNonNull(runnable, "runnable is null");
+        Objects.requireNonNull(type, "type is null");
+        Objects.requireNonNull(translator, "translator is null");
+        return () -> {
+            try {
+                runnable.run();
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw ExceptionTranslation.translateChecked(e, type, translator);
+            }
+        };
+    }
+
 }
@@ -0,0 +1,44 @@
+package org.msyu.javautil.exceptions;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+final class SingleFlightSupplier<O, X extends Exception> implements SupplierWithException<O, X> {
+
+    private final SupplierWithException<? extends O, ? extends X> delegate;
+
+    private final AtomicReference<CompletableFuture<O>> inFlight = new AtomicReference<>();
+
+    SingleFlightSupplier(SupplierWithException<? extends O, ? extends X> delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public final O get() throws X {
+        while (true) {
+            CompletableFuture<O> flight = inFlight.get();
+            if (flight != null) {
+                try {
+                    return flight.join();
+                } catch (CompletionException e) {
+                    throw SneakyThrow.rethrow(e.getCause());
+                }
+            }
+            CompletableFuture<O> ownFlight = new CompletableFuture<>();
+            if (inFlight.compareAndSet(null, ownFlight)) {
+                try {
+                    O value = delegate.get();
+                    ownFlight.complete(value);
+                    return value;
+                } catch (Throwable t) {
+                    ownFlight.completeExceptionally(t);
+                    throw t;
+                } finally {
+                    inFlight.compareAndSet(ownFlight, null);
+                }
+            }
+        }
+    }
+
+}
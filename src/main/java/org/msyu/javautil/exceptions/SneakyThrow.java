@@ -0,0 +1,22 @@
+package org.msyu.javautil.exceptions;
+
+final class SneakyThrow {
+
+    private SneakyThrow() {
+    }
+
+    /**
+     * Throws {@code throwable} without the compiler (or a cast) checking its type.
+     * Declared to return an exception so that callers can write {@code throw rethrow(t);}
+     * to let the compiler know the call doesn't complete normally.
+     */
+    static RuntimeException rethrow(Throwable throwable) {
+        throw SneakyThrow.<RuntimeException>uncheckedRethrow(throwable);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T extends Throwable> T uncheckedRethrow(Throwable throwable) throws T {
+        throw (T) throwable;
+    }
+
+}
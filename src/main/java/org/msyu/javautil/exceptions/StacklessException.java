@@ -0,0 +1,31 @@
+package org.msyu.javautil.exceptions;
+
+/**
+ * A checked exception that does not capture a stack trace.
+ *
+ * <p>Filling in the stack trace is usually the most expensive part of throwing an exception.
+ * Use (or subclass) this for failures that are part of normal control flow, such as timeouts or busy resources,
+ * where the stack trace is of no use anyway.</p>
+ *
+ * <p>An instance created with suppression disabled may be preallocated and thrown over and over again:
+ * {@link #addSuppressed(Throwable)} is a no-op for it, so it doesn't accumulate exceptions between throws.</p>
+ *
+ * @see StacklessRuntimeException
+ */
+public class StacklessException extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
+    public StacklessException(String message) {
+        this(message, null, true);
+    }
+
+    public StacklessException(String message, Throwable cause) {
+        this(message, cause, true);
+    }
+
+    public StacklessException(String message, Throwable cause, boolean enableSuppression) {
+        super(message, cause, enableSuppression, false);
+    }
+
+}
@@ -0,0 +1,22 @@
+package org.msyu.javautil.exceptions;
+
+/**
+ * An unchecked counterpart of {@link StacklessException}.
+ */
+public class StacklessRuntimeException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public StacklessRuntimeException(String message) {
+        this(message, null, true);
+    }
+
+    public StacklessRuntimeException(String message, Throwable cause) {
+        this(message, cause, true);
+    }
+
+    public StacklessRuntimeException(String message, Throwable cause, boolean enableSuppression) {
+        super(message, cause, enableSuppression, false);
+    }
+
+}
@@ -1,8 +1,150 @@
 package org.msyu.javautil.exceptions;
 
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
 @FunctionalInterface
 public interface SupplierWithException<O, X extends Exception> {
 
     O get() throws X;
 
+    /**
+     * @return a supplier that retries failed calls to this one according to the policy.
+     */
+    default SupplierWithException<O, X> withRetry(RetryPolicy<?> policy) {
+        Objects.requireNonNull(policy, "policy is null");
+        return () -> policy.call(this);
+    }
+
+    /**
+     * @return a supplier that calls this one through the circuit breaker.
+     */
+    default SupplierWithException<O, X> withCircuitBreaker(CircuitBreaker breaker) {
+        Objects.requireNonNull(breaker, "breaker is null");
+        return () -> breaker.call(this);
+    }
+
+    /**
+     * Returns a thread-safe supplier that calls {@code supplier} until it succeeds once,
+     * and then returns the same value forever without locking.
+     *
+     * <p>Exceptions are not cached: a failed call is retried by the next {@code get()}.
+     * Concurrent callers wait for each other instead of calling {@code supplier} simultaneously.</p>
+     */
+    static <O, X extends Exception> SupplierWithException<O, X> memoize(
+            SupplierWithException<? extends O, ? extends X> supplier
+    ) {
+        return new MemoizingSupplier<>(Objects.requireNonNull(supplier, "supplier is null"));
+    }
+
+    /**
+     * Returns a thread-safe supplier that calls {@code supplier} and returns the value without locking
+     * until the specified time passes, then calls {@code supplier} again, and so on.
+     *
+     * <p>Exceptions are not cached: a failed call is retried by the next {@code get()}.
+     * Concurrent callers wait for each other instead of calling {@code supplier} simultaneously.</p>
+     *
+     * @throws NullPointerException if {@code supplier} or {@code unit} is {@code null}.
+     * @throws IllegalArgumentException if {@code duration <= 0}.
+     */
+    static <O, X extends Exception> SupplierWithException<O, X> memoizeWithExpiration(
+            SupplierWithException<? extends O, ? extends X> supplier,
+            long duration,
+            TimeUnit unit
+    ) {
+        if (duration <= 0) {
+            throw new IllegalArgumentException("duration is not positive: " + duration);
+        }
+        Objects.requireNonNull(supplier, "supplier is null");
+        Objects.requireNonNull(unit, "unit is null");
+        return new ExpiringMemoizingSupplier<>(supplier, unit.toNanos(duration));
+    }
+
+    /**
+     * Returns a thread-safe supplier that deduplicates concurrent calls: while a call to {@code supplier} is in flight,
+     * other callers wait for it and share its outcome, be it a value or an exception
+     * (the same exception instance is thrown in all the callers' threads).
+     *
+     * <p>Nothing is cached after the call completes: the next {@code get()} calls {@code supplier} again.</p>
+     */
+    static <O, X extends Exception> SupplierWithException<O, X> singleFlight(
+            SupplierWithException<? extends O, ? extends X> supplier
+    ) {
+        return new SingleFlightSupplier<>(Objects.requireNonNull(supplier, "supplier is null"));
+    }
+
+    /**
+     * Adapts {@code supplier} to {@link Supplier}, throwing its checked exceptions as is, without declaring them.
+     */
+    static <O> Supplier<O> sneaky(SupplierWithException<? extends O, ?> supplier) {
+        Objects.requireNonNull(supplier, "supplier is null");
+        return () -> {
+            try {
+                return supplier.get();
+            } catch (Exception e) {
+                throw SneakyThrow.rethrow(e);
+            }
+        };
+    }
+
+    /**
+     * Adapts {@code supplier} to {@link Supplier},
+     * wrapping its checked exceptions in {@link java.io.UncheckedIOException} if they are {@link java.io.IOException}s,
+     * or in {@link RuntimeException}s otherwise.
+     * Unchecked exceptions are thrown as is.
+     */
+    static <O> Supplier<O> unchecked(SupplierWithException<? extends O, ?> supplier) {
+        return unchecked(supplier, ExceptionTranslation::toUnchecked);
+    }
+
+    /**
+     * Adapts {@code supplier} to {@link Supplier},
+     * translating its checked exceptions with {@code translator}.
+     * Unchecked exceptions are thrown as is.
+     */
+    static <O> Supplier<O> unchecked(
+            SupplierWithException<? extends O, ?> supplier,
+            Function<? super Exception, ? extends RuntimeException> translator
+    ) {
+        Objects.requireNonNull(supplier, "supplier is null");
+        Objects.requireNonNull(translator, "translator is null");
+        return () -> {
+            try {
+                return supplier.get();
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw translator.apply(e);
+            }
+        };
+    }
+
+    /**
+     * Returns a supplier that translates the checked exceptions of {@code supplier} with {@code translator}.
+     * Unchecked exceptions, and checked exceptions that aren't instances of {@code type}
+     * (such as ones thrown sneakily), are thrown as is.
+     *
+     * @throws NullPointerException if {@code supplier}, {@code type} or {@code translator} is {@code null}.
+     */
+    static <O, X extends Exception, Y extends Exception> SupplierWithException<O, Y> mapChecked(
+            SupplierWithException<? extends O, ? extends X> supplier,
+            Class<X> type,
+            Function<? super X, ? extends Y> translator
+    ) {
+        Objects.requireNonNull(supplier, "supplier is null");
+        Objects.requireNonNull(type, "type is null");
+        Objects.requireNonNull(translator, "translator is null");
+        return () -> {
+            try {
+                return supplier.get();
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw ExceptionTranslation.translateChecked(e, type, translator);
+            }
+        };
+    }
+
 }
@@ -0,0 +1,117 @@
+package org.msyu.javautil.exceptions;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A fixed-capacity buffer for exceptions that are to be suppressed, but may turn out to have nothing to suppress them.
+ *
+ * <p>{@link Throwable#addSuppressed(Throwable)} grows a list inside the suppressing exception.
+ * When closing things in a loop, it may be cheaper to gather the failures here first,
+ * and {@linkplain #attachTo(Throwable) attach} them only if some exception is actually thrown.
+ * Exceptions gathered from a chain with a {@link ResourceListener} are reported to it when they're attached.
+ * Exceptions added beyond the capacity are not stored, only {@linkplain #getDroppedCount() counted}.</p>
+ *
+ * <p>A collector can be reused after it's been attached or {@linkplain #clear() cleared}.
+ * Instances are not thread-safe.</p>
+ */
+public final class SuppressionCollector {
+
+    private final Throwable[] buffer;
+
+    /**
+     * The listeners to report the stored exceptions to once they're attached. Allocated on the first listener.
+     */
+    private ResourceListener[] listeners;
+
+    private int size;
+
+    private int droppedCount;
+
+    /**
+     * @throws IllegalArgumentException if {@code capacity < 0}.
+     */
+    public SuppressionCollector(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity is negative: " + capacity);
+        }
+        buffer = new Throwable[capacity];
+    }
+
+    /**
+     * @throws NullPointerException if {@code throwable == null}.
+     */
+    public final void add(Throwable throwable) {
+        add(throwable, null);
+    }
+
+    /**
+     * Adds {@code throwable}, to be reported to {@code listener} as suppressed when it's attached.
+     */
+    final void add(Throwable throwable, ResourceListener listener) {
+        Objects.requireNonNull(throwable, "throwable is null");
+        if (size < buffer.length) {
+            if (listener != null) {
+                if (listeners == null) {
+                    listeners = new ResourceListener[buffer.length];
+                }
+                listeners[size] = listener;
+            }
+            buffer[size++] = throwable;
+        } else {
+            ++droppedCount;
+        }
+    }
+
+    /**
+     * @return the amount of stored exceptions.
+     */
+    public final int size() {
+        return size;
+    }
+
+    /**
+     * @return the amount of exceptions that were added but not stored because the collector was full.
+     */
+    public final int getDroppedCount() {
+        return droppedCount;
+    }
+
+    public final boolean isEmpty() {
+        return size == 0 && droppedCount == 0;
+    }
+
+    /**
+     * Adds the stored exceptions to the suppressed list of {@code primary}, then {@linkplain #clear() clears} this collector.
+     * If any exceptions were dropped, a {@link DroppedExceptionsSummary} is suppressed last; its total count includes
+     * {@code primary}.
+     *
+     * @return {@code primary}, to allow {@code throw collector.attachTo(e);}.
+     *
+     * @throws NullPointerException if {@code primary == null}.
+     */
+    public final <T extends Throwable> T attachTo(T primary) {
+        Objects.requireNonNull(primary, "primary is null");
+        for (int i = 0; i < size; ++i) {
+            primary.addSuppressed(buffer[i]);
+            if (listeners != null && listeners[i] != null) {
+                listeners[i].suppressed(primary, buffer[i]);
+            }
+        }
+        if (droppedCount != 0) {
+            primary.addSuppressed(new DroppedExceptionsSummary(droppedCount, 1L + size + droppedCount));
+        }
+        clear();
+        return primary;
+    }
+
+    public final void clear() {
+        Arrays.fill(buffer, 0, size, null);
+        if (listeners != null) {
+            Arrays.fill(listeners, 0, size, null);
+        }
+        size = 0;
+        droppedCount = 0;
+    }
+
+}
@@ -0,0 +1,52 @@
+package org.msyu.javautil.exceptions;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+final class TimedClose {
+
+    private TimedClose() {
+    }
+
+    /**
+     * Runs the close action on {@code executor}, waiting for at most {@code timeoutNanos} for it to finish.
+     * If the executor rejects the action, it isn't run at all, since running it on the calling thread would
+     * not be bounded by the timeout.
+     *
+     * @return the exception thrown by the action, a {@link CloseTimeoutException} if the action didn't finish
+     * in time, the calling thread was interrupted while waiting, or the executor rejected the action,
+     * or {@code null} if the action succeeded.
+     */
+    static Throwable run(RunnableWithException<?> closeAction, Executor executor, long timeoutNanos) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        Runnable task = () -> {
+            try {
+                closeAction.run();
+                done.complete(null);
+            } catch (Throwable t) {
+                done.completeExceptionally(t);
+            }
+        };
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            return new CloseTimeoutException("executor rejected the close action", e);
+        }
+        try {
+            done.get(timeoutNanos, TimeUnit.NANOSECONDS);
+            return null;
+        } catch (ExecutionException e) {
+            return e.getCause();
+        } catch (TimeoutException e) {
+            return new CloseTimeoutException("close did not complete in time");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new CloseTimeoutException("interrupted while waiting for close to complete");
+        }
+    }
+
+}
@@ -0,0 +1,21 @@
+package org.msyu.javautil.exceptions;
+
+/**
+ * A {@link FunctionWithException} specialized for a {@code double} output.
+ */
+@FunctionalInterface
+public interface ToDoubleFunctionWithException<I, X extends Exception> {
+
+    double applyAsDouble(I input) throws X;
+
+    default FunctionWithException<I, Double, X> boxed() {
+        return this::applyAsDouble;
+    }
+
+    static <I, X extends Exception> ToDoubleFunctionWithException<I, X> unboxed(
+            FunctionWithException<? super I, Double, ? extends X> function
+    ) {
+        return function::apply;
+    }
+
+}
@@ -0,0 +1,21 @@
+package org.msyu.javautil.exceptions;
+
+/**
+ * A {@link FunctionWithException} specialized for an {@code int} output.
+ */
+@FunctionalInterface
+public interface ToIntFunctionWithException<I, X extends Exception> {
+
+    int applyAsInt(I input) throws X;
+
+    default FunctionWithException<I, Integer, X> boxed() {
+        return this::applyAsInt;
+    }
+
+    static <I, X extends Exception> ToIntFunctionWithException<I, X> unboxed(
+            FunctionWithException<? super I, Integer, ? extends X> function
+    ) {
+        return function::apply;
+    }
+
+}
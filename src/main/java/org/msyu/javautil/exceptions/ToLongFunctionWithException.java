@@ -0,0 +1,21 @@
+package org.msyu.javautil.exceptions;
+
+/**
+ * A {@link FunctionWithException} specialized for a {@code long} output.
+ */
+@FunctionalInterface
+public interface ToLongFunctionWithException<I, X extends Exception> {
+
+    long applyAsLong(I input) throws X;
+
+    default FunctionWithException<I, Long, X> boxed() {
+        return this::applyAsLong;
+    }
+
+    static <I, X extends Exception> ToLongFunctionWithException<I, X> unboxed(
+            FunctionWithException<? super I, Long, ? extends X> function
+    ) {
+        return function::apply;
+    }
+
+}
@@ -0,0 +1,25 @@
+package org.msyu.javautil.exceptions;
+
+import java.lang.management.ManagementFactory;
+
+class Allocations {
+
+    /**
+     * Runs the action twice (the first run being a warm-up) and reports how many bytes the current thread
+     * allocated on the heap during the second run.
+     *
+     * <p>Relies on the HotSpot extension of {@link java.lang.management.ThreadMXBean}.
+     * The measurement itself allocates a few dozen bytes, so compare the result to the amount of work done
+     * rather than to zero.</p>
+     */
+    static long allocatedBytes(RunnableWithException<?> action) throws Exception {
+        com.sun.management.ThreadMXBean threadMXBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        action.run();
+        long before = threadMXBean.getThreadAllocatedBytes(threadId);
+        action.run();
+        return threadMXBean.getThreadAllocatedBytes(threadId) - before;
+    }
+
+}
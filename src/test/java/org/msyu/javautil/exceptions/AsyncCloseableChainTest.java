@@ -0,0 +1,96 @@
+package org.msyu.javautil.exceptions;
+
+import org.mockito.InOrder;
+import org.mockito.Mockito;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.msyu.javautil.exceptions.AsyncCloseableChain.newAsyncCloseableChain;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+
+public class AsyncCloseableChainTest extends CloseableChainTestBase {
+
+    private ExecutorService executor;
+
+    @BeforeMethod
+    public void setUpExecutor() {
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    @AfterMethod
+    public void tearDownExecutor() {
+        executor.shutdown();
+    }
+
+    @Test
+    public void verifyOrderWithNoExceptions() throws Exception {
+        AsyncCloseableChain<Dummy, Exception> chain = AsyncCloseableChain.<Exception>newAsyncCloseableChain()
+                .chain(__ -> async(() -> new Dummy(false, false)), this::asyncClose)
+                .chain(prev -> async(() -> new Dummy(false, false, prev)), this::asyncClose);
+
+        assertNotNull(chain.getOutput().toCompletableFuture().join());
+
+        AsyncCloseableChain.close(chain).toCompletableFuture().join();
+
+        InOrder inOrder = Mockito.inOrder(tracer);
+        inOrder.verify(tracer).constructorSucceeds(1);
+        inOrder.verify(tracer).constructorSucceeds(2);
+        inOrder.verify(tracer).destructorSucceeds(2);
+        inOrder.verify(tracer).destructorSucceeds(1);
+        inOrder.verifyNoMoreInteractions();
+    }
+
+    @Test(dataProvider = "exhaustiveTests", dataProviderClass = CloseableChainTest.class)
+    public void test(List<Boolean> dummyParameters, String expectedException, List<String> expectedSuppressedExceptions) {
+        assert dummyParameters.size() % 2 == 0 : "dummy parameter list size must be even";
+        assert (expectedException == null) == (expectedSuppressedExceptions == null) :
+                "expected exception parameters must be present or absent together";
+
+        AsyncCloseableChain<?, Exception> chain = newAsyncCloseableChain();
+        Iterator<Boolean> dummyParameterIterator = dummyParameters.iterator();
+        while (dummyParameterIterator.hasNext()) {
+            boolean constructorThrows = dummyParameterIterator.next();
+            boolean destructorThrows = dummyParameterIterator.next();
+            chain = chain.chain(prev -> async(() -> new Dummy(constructorThrows, destructorThrows, prev)), this::asyncClose);
+        }
+
+        try {
+            AsyncCloseableChain.close(chain).toCompletableFuture().join();
+
+            assert expectedException == null : "expected an exception, but none was thrown";
+        } catch (CompletionException e) {
+            assert expectedException != null : "expected no exception, but one or more was thrown";
+            checkRootAndSuppressedExceptions((Exception) e.getCause(), expectedException, expectedSuppressedExceptions);
+        }
+        assertEquals(levelCounter, 0, "amount of objects left open");
+    }
+
+    private <T> CompletableFuture<T> async(SupplierWithException<T, ?> supplier) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        executor.execute(() -> {
+            try {
+                future.complete(supplier.get());
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        });
+        return future;
+    }
+
+    private CompletableFuture<Void> asyncClose(Dummy dummy) {
+        return async(() -> {
+            dummy.close();
+            return null;
+        });
+    }
+
+}
@@ -0,0 +1,190 @@
+package org.msyu.javautil.exceptions;
+
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Arrays.asList;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class BatchingConsumerTest {
+
+    @Test
+    public void synchronousFlushesBySizeAndOnClose() throws Exception {
+        List<List<Integer>> batches = new ArrayList<>();
+        BatchingConsumer<Integer, IOException> consumer =
+                new BatchingConsumer<>(batch -> batches.add(batch), 2, 1, TimeUnit.HOURS);
+        for (int i = 0; i < 5; ++i) {
+            consumer.accept(i);
+        }
+        assertEquals(batches, asList(asList(0, 1), asList(2, 3)));
+        consumer.close();
+        assertEquals(batches, asList(asList(0, 1), asList(2, 3), asList(4)));
+        try {
+            consumer.accept(5);
+            fail("expected an exception");
+        } catch (IllegalStateException expected) {
+        }
+    }
+
+    @Test
+    public void synchronousRethrowsBatchFailureDirectly() throws Exception {
+        BatchingConsumer<Integer, IOException> consumer = new BatchingConsumer<>(
+                batch -> {
+                    throw new IOException("batch " + batch);
+                },
+                2, 1, TimeUnit.HOURS
+        );
+        consumer.accept(1);
+        try {
+            consumer.accept(2);
+            fail("expected an exception");
+        } catch (IOException e) {
+            assertEquals(e.getMessage(), "batch [1, 2]");
+        }
+    }
+
+    @Test
+    public void asynchronousFlushesByAge() throws Exception {
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        try {
+            CountDownLatch flushed = new CountDownLatch(1);
+            List<List<Integer>> batches = new CopyOnWriteArrayList<>();
+            BatchingConsumer<Integer, IOException> consumer = new BatchingConsumer<>(
+                    batch -> {
+                        batches.add(batch);
+                        flushed.countDown();
+                    },
+                    10, 20, TimeUnit.MILLISECONDS, executor, 1
+            );
+            consumer.accept(1);
+            consumer.accept(2);
+            assertTrue(flushed.await(10, TimeUnit.SECONDS));
+            assertEquals(batches, asList(asList(1, 2)));
+            consumer.close();
+            assertEquals(batches.size(), 1);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void asynchronousFlushesRightAwayIfTheExecutorIsShutDown() throws Exception {
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        executor.shutdown();
+        List<List<Integer>> batches = new CopyOnWriteArrayList<>();
+        BatchingConsumer<Integer, IOException> consumer =
+                new BatchingConsumer<>(batch -> batches.add(batch), 10, 1, TimeUnit.HOURS, executor, 1);
+        consumer.accept(1);
+        assertEquals(batches, asList(asList(1)));
+        consumer.accept(2);
+        consumer.close();
+        assertEquals(batches, asList(asList(1), asList(2)));
+    }
+
+    @Test
+    public void asynchronousReportsEachFailedBatch() throws Exception {
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        try {
+            CountDownLatch release = new CountDownLatch(1);
+            BatchingConsumer<Integer, Exception> consumer = new BatchingConsumer<>(
+                    batch -> {
+                        release.await();
+                        throw new IOException("batch " + batch);
+                    },
+                    1, 1, TimeUnit.HOURS, executor, 4
+            );
+            consumer.accept(1);
+            consumer.accept(2);
+            release.countDown();
+            try {
+                consumer.close();
+                fail("expected an exception");
+            } catch (IOException e) {
+                assertEquals(e.getMessage(), "batch [1]");
+                assertEquals(e.getSuppressed().length, 1);
+                assertEquals(e.getSuppressed()[0].getMessage(), "batch [2]");
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void asynchronousFailureIsReportedAfterAcceptingTheItem() throws Exception {
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        try {
+            List<List<Integer>> batches = new CopyOnWriteArrayList<>();
+            BatchingConsumer<Integer, IOException> consumer = new BatchingConsumer<>(
+                    batch -> {
+                        batches.add(batch);
+                        if (batch.contains(1)) {
+                            throw new IOException("batch " + batch);
+                        }
+                    },
+                    1, 1, TimeUnit.HOURS, executor, 4
+            );
+            consumer.accept(1);
+            // the executor is single-threaded, so this runs after the failed batch has been recorded
+            executor.submit(() -> {}).get(10, TimeUnit.SECONDS);
+            try {
+                consumer.accept(2);
+                fail("expected an exception");
+            } catch (IOException e) {
+                assertEquals(e.getMessage(), "batch [1]");
+            }
+            consumer.close();
+            assertEquals(batches, asList(asList(1), asList(2)));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void asynchronousBlocksWhenPendingBatchesAreFull() throws Exception {
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        ExecutorService producer = Executors.newSingleThreadExecutor();
+        try {
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            List<List<Integer>> batches = new CopyOnWriteArrayList<>();
+            BatchingConsumer<Integer, Exception> consumer = new BatchingConsumer<>(
+                    batch -> {
+                        started.countDown();
+                        release.await();
+                        batches.add(batch);
+                    },
+                    1, 1, TimeUnit.HOURS, executor, 1
+            );
+            consumer.accept(1);
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            consumer.accept(2);
+            Future<?> blocked = producer.submit(() -> {
+                consumer.accept(3);
+                return null;
+            });
+            Thread.sleep(100);
+            assertFalse(blocked.isDone());
+            release.countDown();
+            blocked.get(10, TimeUnit.SECONDS);
+            consumer.close();
+            assertEquals(batches, asList(asList(1), asList(2), asList(3)));
+        } finally {
+            producer.shutdown();
+            executor.shutdown();
+        }
+    }
+
+}
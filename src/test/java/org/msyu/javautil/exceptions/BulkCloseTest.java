@@ -0,0 +1,105 @@
+package org.msyu.javautil.exceptions;
+
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class BulkCloseTest {
+
+    private static List<Integer> range(int size) {
+        List<Integer> items = new ArrayList<>(size);
+        for (int i = 0; i < size; ++i) {
+            items.add(i);
+        }
+        return items;
+    }
+
+    @Test
+    public void sequentialCapsSuppressedExceptionsAndSummarizesTheRest() {
+        List<Integer> closed = new ArrayList<>();
+        try {
+            BulkClose.sequential().withMaxSuppressed(3).closeAll(
+                    range(1000),
+                    i -> {
+                        closed.add(i);
+                        if (i % 2 == 1) {
+                            throw new IOException("failed " + i);
+                        }
+                    }
+            );
+            fail("expected an exception");
+        } catch (IOException e) {
+            assertEquals(e.getMessage(), "failed 1");
+            Throwable[] suppressed = e.getSuppressed();
+            assertEquals(suppressed.length, 4);
+            assertEquals(suppressed[0].getMessage(), "failed 3");
+            DroppedExceptionsSummary summary = (DroppedExceptionsSummary) suppressed[3];
+            assertEquals(summary.getDroppedCount(), 496);
+            assertEquals(summary.getTotalCount(), 500);
+        }
+        assertEquals(closed, range(1000));
+    }
+
+    @Test
+    public void closesAutoCloseablesSkippingNulls() throws Exception {
+        List<String> closed = new ArrayList<>();
+        BulkClose.sequential().closeAll(() -> closed.add("a"), null, () -> closed.add("b"));
+        assertEquals(closed.size(), 2);
+    }
+
+    @Test
+    public void parallelClosesEverything() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            Set<Integer> closed = ConcurrentHashMap.newKeySet();
+            try {
+                BulkClose.parallel(executor, 4).closeAll(
+                        range(10_000),
+                        i -> {
+                            closed.add(i);
+                            if (i % 1000 == 0) {
+                                throw new IOException("failed " + i);
+                            }
+                        }
+                );
+                fail("expected an exception");
+            } catch (IOException e) {
+                assertEquals(e.getSuppressed().length, 9);
+            }
+            assertEquals(closed.size(), 10_000);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void rateLimitSpacesOutCloses() throws Exception {
+        long start = System.nanoTime();
+        BulkClose.sequential().withRateLimit(100).closeAll(range(6), i -> {});
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(45));
+    }
+
+    @Test
+    public void rateLimitIsKeptAfterASlowClose() throws Exception {
+        long[] starts = new long[5];
+        BulkClose.sequential().withRateLimit(100).closeAll(range(5), i -> {
+            starts[i] = System.nanoTime();
+            if (i == 0) {
+                Thread.sleep(100);
+            }
+        });
+        assertTrue(starts[4] - starts[1] >= TimeUnit.MILLISECONDS.toNanos(25), "closes after the stall were not spaced");
+    }
+
+}
@@ -0,0 +1,131 @@
+package org.msyu.javautil.exceptions;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.msyu.javautil.exceptions.AutoCloseableWrapper.runOnClose;
+import static org.msyu.javautil.exceptions.CloseableChain.newCloseableChain;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class CloseTimeoutTest {
+
+    private ExecutorService executor;
+
+    private CountDownLatch release;
+
+    private List<String> closed;
+
+    @BeforeMethod
+    public void setUp() {
+        executor = Executors.newCachedThreadPool();
+        release = new CountDownLatch(1);
+        closed = Collections.synchronizedList(new ArrayList<>());
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        release.countDown();
+        executor.shutdown();
+    }
+
+    @Test
+    public void hungDestructorTimesOutAndTheRestAreClosed() throws Exception {
+        CloseableChain<String, Exception> chain = newCloseableChain()
+                .chain(__ -> "a", closed::add)
+                .chain(__ -> "b", this::hang)
+                .chain(__ -> "c", closed::add);
+
+        long start = System.nanoTime();
+        try {
+            CloseableChain.closeWithTimeout(chain, 50, 10_000, TimeUnit.MILLISECONDS, executor);
+            fail("expected a timeout");
+        } catch (CloseTimeoutException e) {
+            assertEquals(e.getSuppressed().length, 0);
+        }
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5), "close took too long");
+        assertEquals(closed, Arrays.asList("c", "a"));
+    }
+
+    @Test
+    public void chainDeadlineBoundsTheTotalTime() throws Exception {
+        CountDownLatch firstClosed = new CountDownLatch(1);
+        CloseableChain<String, Exception> chain = newCloseableChain()
+                .chain(__ -> "a", output -> firstClosed.countDown())
+                .chain(__ -> "b", this::hang)
+                .chain(__ -> "c", this::hang);
+        Exception suppressor = new Exception("suppressor");
+
+        long start = System.nanoTime();
+        CloseableChain.closeWithTimeout(chain, suppressor, 10_000, 100, TimeUnit.MILLISECONDS, executor);
+
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5), "close took too long");
+        // the last link is closed past the deadline, so it's only reported as timed out if it's not fast enough
+        Throwable[] suppressed = suppressor.getSuppressed();
+        assertTrue(suppressed.length == 2 || suppressed.length == 3, Arrays.toString(suppressed));
+        for (Throwable t : suppressed) {
+            assertTrue(t instanceof CloseTimeoutException, String.valueOf(t));
+        }
+        assertTrue(firstClosed.await(10, TimeUnit.SECONDS), "the remaining link was not closed");
+    }
+
+    @Test
+    public void destructorExceptionsAreKept() {
+        try {
+            CloseableChain.closeWithTimeout(
+                    newCloseableChain().chain(__ -> "a", output -> { throw new Exception("d1"); }),
+                    1, 1, TimeUnit.SECONDS, executor
+            );
+            fail("expected an exception");
+        } catch (Exception e) {
+            assertEquals(e.getMessage(), "d1");
+        }
+    }
+
+    @Test
+    public void rejectedDestructorsAreReportedAndNotRunOnTheCaller() {
+        CloseableChain<String, Exception> chain = newCloseableChain()
+                .chain(__ -> "a", closed::add)
+                .chain(__ -> "b", this::hang);
+        Exception suppressor = new Exception("suppressor");
+
+        CloseableChain.closeWithTimeout(chain, suppressor, 50, 50, TimeUnit.MILLISECONDS, command -> {
+            throw new RejectedExecutionException();
+        });
+
+        assertEquals(suppressor.getSuppressed().length, 2);
+        for (Throwable t : suppressor.getSuppressed()) {
+            assertTrue(t instanceof CloseTimeoutException, String.valueOf(t));
+            assertTrue(t.getCause() instanceof RejectedExecutionException, String.valueOf(t.getCause()));
+        }
+        assertEquals(closed, Collections.emptyList());
+    }
+
+    @Test(expectedExceptions = CloseTimeoutException.class)
+    public void autoCloseableWrapperTimesOut() throws Exception {
+        runOnClose(() -> hang("a")).close(50, TimeUnit.MILLISECONDS, executor);
+    }
+
+    @Test
+    public void autoCloseableWrapperWithinTimeout() throws Exception {
+        runOnClose(() -> closed.add("a")).close(10, TimeUnit.SECONDS, executor);
+        assertEquals(closed, Collections.singletonList("a"));
+    }
+
+    private void hang(String output) throws InterruptedException {
+        release.await();
+    }
+
+}
@@ -0,0 +1,108 @@
+package org.msyu.javautil.exceptions;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.msyu.javautil.exceptions.CloseableChain.newCloseableChain;
+import static org.msyu.javautil.exceptions.CloseableChainTestBase.checkRootAndSuppressedExceptions;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class CloseableChainParallelCloseTest {
+
+    private ExecutorService executor;
+
+    private List<String> closed;
+
+    @BeforeMethod
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+        closed = Collections.synchronizedList(new ArrayList<>());
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    public void groupsAreClosedConcurrentlyInsideAndInReverseOrderBetween() throws Exception {
+        CountDownLatch bothInSecondGroupStarted = new CountDownLatch(2);
+        ConsumerWithException<String, Exception> waitForSibling = name -> {
+            bothInSecondGroupStarted.countDown();
+            assertTrue(bothInSecondGroupStarted.await(10, TimeUnit.SECONDS), "the sibling destructor didn't start");
+            closed.add(name);
+        };
+        CloseableChain<String, Exception> chain = newCloseableChain()
+                .chain(__ -> "a", closed::add)
+                .chainIndependent(__ -> "b", closed::add)
+                .chain(__ -> "c", waitForSibling)
+                .chainIndependent(__ -> "d", waitForSibling);
+
+        CloseableChain.closeParallel(chain, executor);
+
+        assertEquals(closed.size(), 4);
+        assertTrue(closed.subList(0, 2).containsAll(Arrays.asList("c", "d")), "closing order " + closed);
+    }
+
+    @Test
+    public void sequentialLinksAreClosedInReverseOrder() throws Exception {
+        CloseableChain<String, Exception> chain = newCloseableChain()
+                .chain(__ -> "a", closed::add)
+                .chain(__ -> "b", closed::add)
+                .chain(__ -> "c", closed::add);
+
+        CloseableChain.closeParallel(chain, executor);
+
+        assertEquals(closed, Arrays.asList("c", "b", "a"));
+    }
+
+    @Test(dataProvider = "exhaustiveTests", dataProviderClass = CloseableChainTest.class)
+    public void test(List<Boolean> dummyParameters, String expectedException, List<String> expectedSuppressedExceptions) {
+        assert dummyParameters.size() % 2 == 0 : "dummy parameter list size must be even";
+        assert (expectedException == null) == (expectedSuppressedExceptions == null) :
+                "expected exception parameters must be present or absent together";
+
+        CloseableChain<?, Exception> chain = newCloseableChain();
+        try {
+            Iterator<Boolean> dummyParameterIterator = dummyParameters.iterator();
+            for (int level = 1; dummyParameterIterator.hasNext(); ++level) {
+                boolean constructorThrows = dummyParameterIterator.next();
+                boolean destructorThrows = dummyParameterIterator.next();
+                int index = level;
+                chain = chain.chainIndependent(
+                        __ -> {
+                            if (constructorThrows) {
+                                throw new Exception("c" + index);
+                            }
+                            return index;
+                        },
+                        __ -> {
+                            if (destructorThrows) {
+                                throw new Exception("d" + index);
+                            }
+                        }
+                );
+            }
+
+            CloseableChain.closeParallel(chain, executor);
+
+            assert expectedException == null : "expected an exception, but none was thrown";
+        } catch (Exception e) {
+            assert expectedException != null : "expected no exception, but one or more was thrown";
+            checkRootAndSuppressedExceptions(e, expectedException, expectedSuppressedExceptions);
+        }
+    }
+
+}
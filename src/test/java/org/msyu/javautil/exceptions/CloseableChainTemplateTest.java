@@ -0,0 +1,79 @@
+package org.msyu.javautil.exceptions;
+
+import org.mockito.InOrder;
+import org.mockito.Mockito;
+import org.testng.annotations.Test;
+
+import java.util.Iterator;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+public class CloseableChainTemplateTest extends CloseableChainTestBase {
+
+    @Test
+    public void verifyTypedStepsAndOrder() throws Exception {
+        CloseableChainTemplate<String, Dummy, Exception, Exception> template = CloseableChainTemplate.<String, Exception, Exception>builder()
+                .then(String::length, null)
+                .then(length -> new Dummy(false, false, length), Dummy::close)
+                .thenEffects(dummy -> tracer.chainComplete(dummy), null)
+                .build();
+        assertEquals(template.size(), 3);
+
+        for (int run = 0; run < 2; ++run) {
+            CloseableChainTemplate.Instance<Dummy, Exception> instance = template.open("input");
+            Dummy output = instance.getOutput();
+            instance.close();
+            instance.close();
+            assertNull(instance.getOutput());
+
+            InOrder inOrder = Mockito.inOrder(tracer);
+            inOrder.verify(tracer).constructorSucceeds(1);
+            inOrder.verify(tracer).chainComplete(output);
+            inOrder.verify(tracer).destructorSucceeds(1);
+            inOrder.verifyNoMoreInteractions();
+            Mockito.reset(tracer);
+        }
+    }
+
+    private CloseableChainTemplate<Object, Object, Exception, Exception> template(List<Boolean> dummyParameters) {
+        CloseableChainTemplate.Builder<Object, Object, Exception, Exception> builder = CloseableChainTemplate.builder();
+        Iterator<Boolean> dummyParameterIterator = dummyParameters.iterator();
+        while (dummyParameterIterator.hasNext()) {
+            boolean constructorThrows = dummyParameterIterator.next();
+            boolean destructorThrows = dummyParameterIterator.next();
+            builder = builder.then(prev -> new Dummy(constructorThrows, destructorThrows, prev), dummy -> ((Dummy) dummy).close());
+        }
+        return builder.build();
+    }
+
+    @Test(dataProvider = "exhaustiveTests", dataProviderClass = CloseableChainTest.class)
+    public void test(List<Boolean> dummyParameters, String expectedException, List<String> expectedSuppressedExceptions) {
+        try {
+            CloseableChainTemplate.Instance<Object, Exception> instance = template(dummyParameters).open(null);
+            assertEquals(levelCounter, dummyParameters.size() / 2, "amount of constructed objects");
+            instance.close();
+            assert expectedException == null : "expected an exception, but none was thrown";
+        } catch (Exception e) {
+            assert expectedException != null : "expected no exception, but one or more was thrown";
+            checkRootAndSuppressedExceptions(e, expectedException, expectedSuppressedExceptions);
+        }
+    }
+
+    @Test(dataProvider = "exhaustiveTests", dataProviderClass = CloseableChainTest.class)
+    public void testMutable(List<Boolean> dummyParameters, String expectedException, List<String> expectedSuppressedExceptions) {
+        MutableCloseableChain<Exception> chain = new MutableCloseableChain<>(0);
+        try {
+            template(dummyParameters).open(null, chain);
+            assertEquals(chain.size(), dummyParameters.size() / 2, "amount of links");
+            chain.close();
+            assert expectedException == null : "expected an exception, but none was thrown";
+        } catch (Exception e) {
+            assert expectedException != null : "expected no exception, but one or more was thrown";
+            checkRootAndSuppressedExceptions(e, expectedException, expectedSuppressedExceptions);
+        }
+        assertEquals(chain.size(), 0, "links left after closing");
+    }
+
+}
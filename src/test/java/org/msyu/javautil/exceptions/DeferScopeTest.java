@@ -0,0 +1,107 @@
+package org.msyu.javautil.exceptions;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.msyu.javautil.exceptions.Allocations.allocatedBytes;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class DeferScopeTest {
+
+    private static final int ITERATIONS = 100_000;
+
+    private final List<String> closed = new ArrayList<>();
+
+    private int counter;
+
+    @BeforeMethod
+    public void reset() {
+        closed.clear();
+    }
+
+    private void close(String name) throws Exception {
+        closed.add(name);
+        if (name.startsWith("!")) {
+            throw new Exception(name);
+        }
+    }
+
+    private void deferFromCallee(String name) {
+        DeferScope.<Exception>current().defer(name, this::close);
+    }
+
+    @Test
+    public void runsCleanupsInReverseOrder() throws Exception {
+        try (DeferScope<Exception> scope = DeferScope.open()) {
+            scope.defer("a", this::close);
+            scope.defer(() -> close("b"));
+            scope.defer(null, this::close);
+            deferFromCallee("c");
+            assertEquals(scope.size(), 4);
+        }
+        assertEquals(closed, asList("c", "b", "a"));
+    }
+
+    @Test
+    public void nestedScopesCloseOnlyTheirOwnCleanups() throws Exception {
+        try (DeferScope<Exception> outer = DeferScope.open()) {
+            outer.defer("outer", this::close);
+            try (DeferScope<Exception> inner = DeferScope.open()) {
+                assertSame(inner, outer);
+                deferFromCallee("inner");
+                assertEquals(inner.size(), 1);
+            }
+            assertEquals(closed, asList("inner"));
+            assertEquals(outer.size(), 1);
+        }
+        assertEquals(closed, asList("inner", "outer"));
+        try {
+            DeferScope.current();
+            fail("expected an exception");
+        } catch (IllegalStateException expected) {
+        }
+    }
+
+    @Test
+    public void firstExceptionSuppressesTheRest() {
+        try {
+            try (DeferScope<Exception> scope = DeferScope.open()) {
+                scope.defer("!1", this::close);
+                scope.defer("2", this::close);
+                scope.defer("!3", this::close);
+                scope.defer("!4", this::close);
+            }
+            fail("expected an exception");
+        } catch (Exception e) {
+            assertEquals(e.getMessage(), "!4");
+            assertEquals(e.getSuppressed().length, 2);
+            assertEquals(e.getSuppressed()[0].getMessage(), "!3");
+            assertEquals(e.getSuppressed()[1].getMessage(), "!1");
+        }
+        assertEquals(closed, asList("!4", "!3", "2", "!1"));
+    }
+
+    @Test
+    public void recycledScopeDoesNotAllocate() throws Exception {
+        RunnableWithException<RuntimeException> count = () -> ++counter;
+        RunnableWithException<?> action = () -> {
+            for (int i = 0; i < ITERATIONS; ++i) {
+                try (DeferScope<RuntimeException> scope = DeferScope.open()) {
+                    scope.defer(count);
+                    scope.defer(count);
+                }
+            }
+        };
+        long bytes = allocatedBytes(action);
+        assertTrue(bytes < ITERATIONS, "allocated " + bytes + " bytes in " + ITERATIONS + " iterations");
+        assertEquals(counter, 4 * ITERATIONS);
+    }
+
+}
@@ -0,0 +1,127 @@
+package org.msyu.javautil.exceptions;
+
+import org.testng.annotations.Test;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.file.StandardOpenOption.READ;
+import static org.msyu.javautil.exceptions.CloseableChain.newCloseableChain;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class DirectBuffersTest {
+
+    private static long bufferCount(String pool) {
+        for (BufferPoolMXBean bean : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            if (bean.getName().equals(pool)) {
+                return bean.getCount();
+            }
+        }
+        throw new AssertionError("no buffer pool " + pool);
+    }
+
+    @Test
+    public void freeingIsSupported() {
+        assertTrue(DirectBuffers.isFreeingSupported());
+    }
+
+    @Test
+    public void handleFreesTheBufferOnce() {
+        long before = bufferCount("direct");
+        DirectBuffers.Handle<ByteBuffer> handle = DirectBuffers.allocate(1 << 20);
+        assertEquals(bufferCount("direct"), before + 1);
+        handle.get().putInt(0, 42);
+        handle.close();
+        handle.close();
+        assertEquals(bufferCount("direct"), before);
+        try {
+            handle.get();
+            fail("expected an exception");
+        } catch (IllegalStateException expected) {
+        }
+    }
+
+    @Test
+    public void slicesAndHeapBuffersAreRejected() {
+        try (DirectBuffers.Handle<ByteBuffer> handle = DirectBuffers.allocate(16)) {
+            try {
+                DirectBuffers.free(handle.get().slice());
+                fail("expected an exception");
+            } catch (IllegalArgumentException expected) {
+            }
+        }
+        try {
+            DirectBuffers.free(ByteBuffer.allocate(16));
+            fail("expected an exception");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void chainUnmapsBeforeClosingTheChannel() throws Exception {
+        Path file = Files.createTempFile("direct-buffers", ".bin");
+        try {
+            Files.write(file, new byte[]{1, 2, 3, 4});
+            List<String> closed = new ArrayList<>();
+            long before = bufferCount("mapped");
+            CloseableChain<MappedByteBuffer, Exception> chain = newCloseableChain()
+                    .chain(__ -> file, null)
+                    .chain(DirectBuffers.openChannel(READ), channel -> {
+                        closed.add("channel " + bufferCount("mapped"));
+                        channel.close();
+                    })
+                    .chain(DirectBuffers.mapping(FileChannel.MapMode.READ_ONLY), DirectBuffers::free);
+            assertEquals(chain.getOutput().get(3), 4);
+            assertEquals(bufferCount("mapped"), before + 1);
+            CloseableChain.close(chain);
+            assertEquals(closed.size(), 1);
+            assertEquals(closed.get(0), "channel " + before);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void emptyMappingsCanBeFreed() throws Exception {
+        Path file = Files.createTempFile("direct-buffers", ".bin");
+        try (FileChannel channel = FileChannel.open(file, READ)) {
+            DirectBuffers.Handle<MappedByteBuffer> handle = DirectBuffers.map(channel, FileChannel.MapMode.READ_ONLY, 0, 0);
+            assertEquals(handle.get().capacity(), 0);
+            handle.close();
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void poolReusesClearedBuffers() throws Exception {
+        ObjectPool<ByteBuffer, RuntimeException> pool = DirectBuffers.newPool(64, 2, 1, TimeUnit.MINUTES);
+        long before = bufferCount("direct");
+        ByteBuffer first;
+        try (ObjectPool.Lease<ByteBuffer, RuntimeException> lease = pool.lease()) {
+            first = lease.get();
+            first.putLong(1);
+            assertFalse(first.position() == 0);
+        }
+        try (ObjectPool.Lease<ByteBuffer, RuntimeException> lease = pool.lease()) {
+            assertSame(lease.get(), first);
+            assertEquals(lease.get().position(), 0);
+        }
+        assertEquals(bufferCount("direct"), before + 1);
+        pool.close();
+        assertEquals(bufferCount("direct"), before);
+    }
+
+}
@@ -0,0 +1,129 @@
+package org.msyu.javautil.exceptions;
+
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.fail;
+
+public class ExceptionTranslationTest {
+
+    private static final IOException IO_FAILURE = new IOException("io");
+
+    private static final IllegalStateException UNCHECKED_FAILURE = new IllegalStateException("unchecked");
+
+    private static String process(String input) throws IOException {
+        if (input.equals("io")) {
+            throw IO_FAILURE;
+        }
+        if (input.equals("unchecked")) {
+            throw UNCHECKED_FAILURE;
+        }
+        return input;
+    }
+
+    private static final class TranslatedException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        TranslatedException(Throwable cause) {
+            super(cause);
+        }
+    }
+
+    @Test
+    public void sneakyThrowsTheOriginalException() {
+        Function<String, String> function = FunctionWithException.sneaky(ExceptionTranslationTest::process);
+        assertEquals(function.apply("ok"), "ok");
+        try {
+            function.apply("io");
+            fail("expected an exception");
+        } catch (Exception e) {
+            assertSame(e, IO_FAILURE);
+        }
+    }
+
+    @Test
+    public void uncheckedWrapsCheckedExceptionsOnly() {
+        Consumer<String> consumer = ConsumerWithException.unchecked(ExceptionTranslationTest::process);
+        try {
+            consumer.accept("io");
+            fail("expected an exception");
+        } catch (UncheckedIOException e) {
+            assertSame(e.getCause(), IO_FAILURE);
+        }
+        try {
+            consumer.accept("unchecked");
+            fail("expected an exception");
+        } catch (IllegalStateException e) {
+            assertSame(e, UNCHECKED_FAILURE);
+        }
+        Supplier<String> supplier = SupplierWithException.unchecked(() -> process("io"), IllegalArgumentException::new);
+        try {
+            supplier.get();
+            fail("expected an exception");
+        } catch (IllegalArgumentException e) {
+            assertSame(e.getCause(), IO_FAILURE);
+        }
+    }
+
+    @Test
+    public void mapCheckedTranslatesToAnotherCheckedType() {
+        RunnableWithException<TranslatedException> runnable =
+                RunnableWithException.mapChecked(() -> process("io"), IOException.class, TranslatedException::new);
+        try {
+            runnable.run();
+            fail("expected an exception");
+        } catch (TranslatedException e) {
+            assertSame(e.getCause(), IO_FAILURE);
+        }
+    }
+
+    @Test
+    public void mapCheckedRethrowsExceptionsOfOtherTypesAsIs() {
+        Exception sneaky = new Exception("sneaky");
+        SupplierWithException<String, TranslatedException> supplier = SupplierWithException.mapChecked(
+                () -> {
+                    throw SneakyThrow.rethrow(sneaky);
+                },
+                IOException.class,
+                TranslatedException::new
+        );
+        try {
+            supplier.get();
+            fail("expected an exception");
+        } catch (Exception e) {
+            assertSame(e, sneaky);
+        }
+    }
+
+    @Test
+    public void mapCheckedRejectsNullTranslations() {
+        ConsumerWithException<String, TranslatedException> consumer =
+                ConsumerWithException.mapChecked(ExceptionTranslationTest::process, IOException.class, e -> null);
+        try {
+            consumer.accept("io");
+            fail("expected an exception");
+        } catch (NullPointerException e) {
+            assertSame(e.getCause(), IO_FAILURE);
+        } catch (TranslatedException e) {
+            fail("unexpected translation", e);
+        }
+    }
+
+    @Test
+    public void identityAdaptersAreSingletons() {
+        assertSame(FunctionWithException.sneaky(FunctionWithException.identity()), Function.identity());
+        assertSame(FunctionWithException.unchecked(FunctionWithException.identity()), Function.identity());
+        assertSame(
+                FunctionWithException.mapChecked(FunctionWithException.identity(), Exception.class, TranslatedException::new),
+                FunctionWithException.identity()
+        );
+    }
+
+}
@@ -0,0 +1,86 @@
+package org.msyu.javautil.exceptions;
+
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.fail;
+
+public class FunctionPipelineTest {
+
+    private static final IOException FAILURE = new IOException("negative");
+
+    private static Integer checkNonNegative(Integer value) throws IOException {
+        if (value < 0) {
+            throw FAILURE;
+        }
+        return value;
+    }
+
+    @Test
+    public void combinatorsApplyInOrder() throws Exception {
+        FunctionWithException<String, Integer, IOException> length = String::length;
+        FunctionWithException<String, String, IOException> trim = String::trim;
+        assertEquals(length.andThen(n -> n * 10).apply("abc"), Integer.valueOf(30));
+        assertEquals(length.compose(trim).apply("  abc  "), Integer.valueOf(3));
+        List<Integer> consumed = new ArrayList<>();
+        length.andThenConsume(consumed::add).accept("abcd");
+        assertEquals(consumed.get(0), Integer.valueOf(4));
+    }
+
+    @Test
+    public void pipelineAppliesStagesAndKeepsTheExceptionType() {
+        FunctionPipeline<String, Integer, IOException> pipeline = FunctionPipeline.<String, IOException>builder()
+                .then(Integer::valueOf)
+                .then(FunctionPipelineTest::checkNonNegative)
+                .then(n -> n + 1)
+                .build();
+        try {
+            assertEquals(pipeline.apply("41"), Integer.valueOf(42));
+            pipeline.apply("-1");
+            fail("expected an exception");
+        } catch (IOException e) {
+            assertSame(e, FAILURE);
+        }
+    }
+
+    @Test
+    public void nestedPipelinesAreFlattened() throws Exception {
+        FunctionPipeline<Integer, Integer, RuntimeException> increment = FunctionPipeline.<Integer, RuntimeException>builder()
+                .then(n -> n + 1)
+                .then(n -> n + 1)
+                .build();
+        FunctionPipeline<Integer, Integer, RuntimeException> pipeline = FunctionPipeline.<Integer, RuntimeException>builder()
+                .then(increment)
+                .then(n -> n * 2)
+                .then(increment)
+                .build();
+        assertEquals(pipeline.size(), 5);
+        assertEquals(pipeline.apply(0), Integer.valueOf(6));
+        FunctionPipeline<Integer, Integer, RuntimeException> longer = pipeline.andThen(increment).compose(n -> n * 10);
+        assertEquals(longer.size(), 8);
+        assertEquals(longer.apply(1), Integer.valueOf(28));
+    }
+
+    @Test
+    public void widenedPipelineAcceptsBroaderStages() throws Exception {
+        FunctionPipeline<String, Integer, IOException> parse = FunctionPipeline.<String, IOException>builder()
+                .then(Integer::valueOf)
+                .then(FunctionPipelineTest::checkNonNegative)
+                .build();
+        FunctionPipeline<String, Integer, Exception> widened = FunctionPipeline.<String, Integer, Exception>widen(parse)
+                .andThen(n -> {
+                    if (n == 0) {
+                        throw new Exception("zero");
+                    }
+                    return 100 / n;
+                });
+        assertEquals(widened.apply("4"), Integer.valueOf(25));
+        assertEquals(widened.size(), 3);
+    }
+
+}
@@ -0,0 +1,88 @@
+package org.msyu.javautil.exceptions;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.msyu.javautil.exceptions.CloseableChain.newCloseableChain;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+public class LeakDetectorTest {
+
+    private final List<ResourceLeakException> leaks = new CopyOnWriteArrayList<>();
+
+    @BeforeMethod
+    public void enable() {
+        leaks.clear();
+        LeakDetector.checkForLeaks();
+        LeakDetector.setLeakHandler(leaks::add);
+        LeakDetector.setSamplingInterval(1);
+    }
+
+    @AfterMethod
+    public void disable() {
+        LeakDetector.setSamplingInterval(0);
+        LeakDetector.setLeakHandler(Throwable::printStackTrace);
+    }
+
+    private void collectGarbage() throws InterruptedException {
+        for (int i = 0; i < 50 && leaks.isEmpty(); ++i) {
+            System.gc();
+            Thread.sleep(10);
+            LeakDetector.checkForLeaks();
+        }
+    }
+
+    private static void leakChain() throws Exception {
+        newCloseableChain().chain(v -> "leaked", s -> {});
+    }
+
+    @Test
+    public void reportsUnclosedChainWithCreationSite() throws Exception {
+        leakChain();
+        collectGarbage();
+        assertEquals(leaks.size(), 1);
+        boolean found = false;
+        for (StackTraceElement element : leaks.get(0).getStackTrace()) {
+            found |= element.getMethodName().equals("leakChain");
+        }
+        assertTrue(found);
+    }
+
+    @Test
+    public void closedChainIsNotReported() throws Exception {
+        CloseableChain.close(newCloseableChain().chain(v -> "closed", s -> {}));
+        collectGarbage();
+        assertEquals(leaks.size(), 0);
+    }
+
+    @Test
+    public void unextendedChainIsNotReported() throws Exception {
+        newCloseableChain();
+        leakChain();
+        collectGarbage();
+        assertEquals(leaks.size(), 1);
+    }
+
+    @Test
+    public void reportsUnclosedTrackedResource() throws Exception {
+        LeakDetector.track(() -> {});
+        ParameterizedAutoCloseable<RuntimeException> closed = LeakDetector.track(() -> {});
+        closed.close();
+        collectGarbage();
+        assertEquals(leaks.size(), 1);
+    }
+
+    @Test
+    public void disabledDetectorDoesNotWrap() {
+        LeakDetector.setSamplingInterval(0);
+        ParameterizedAutoCloseable<RuntimeException> resource = () -> {};
+        assertSame(LeakDetector.track(resource), resource);
+    }
+
+}
@@ -0,0 +1,217 @@
+package org.msyu.javautil.exceptions;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.expectThrows;
+import static org.testng.Assert.fail;
+
+public class LoadingCacheTest {
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private final List<String> destroyed = new ArrayList<>();
+
+    @BeforeMethod
+    public void reset() {
+        loads.set(0);
+        destroyed.clear();
+    }
+
+    private String load(Integer key) throws IOException {
+        loads.incrementAndGet();
+        if (key < 0) {
+            throw new IOException("negative " + key);
+        }
+        return "v" + key;
+    }
+
+    private void destroy(String value) throws IOException {
+        destroyed.add(value);
+        if (value.startsWith("v1")) {
+            throw new IOException("can't destroy " + value);
+        }
+    }
+
+    @Test
+    public void cachesLoadedValues() throws Exception {
+        LoadingCache<Integer, String, IOException> cache = new LoadingCache<>(this::load, this::destroy, null, 4, 1);
+        assertEquals(cache.get(2), "v2");
+        assertEquals(cache.get(2), "v2");
+        assertEquals(loads.get(), 1);
+        assertEquals(cache.getHitCount(), 1);
+        assertEquals(cache.getMissCount(), 1);
+        assertEquals(cache.getLoadSuccessCount(), 1);
+    }
+
+    @Test
+    public void loaderExceptionsKeepTheirTypeAndAreNotCached() {
+        LoadingCache<Integer, String, IOException> cache = new LoadingCache<>(this::load, this::destroy, null, 4, 1);
+        for (int i = 0; i < 2; ++i) {
+            try {
+                cache.get(-1);
+                fail("expected an exception");
+            } catch (IOException e) {
+                assertEquals(e.getMessage(), "negative -1");
+            }
+        }
+        assertEquals(loads.get(), 2);
+        assertEquals(cache.getLoadFailureCount(), 2);
+        assertEquals(cache.size(), 0);
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedValues() throws Exception {
+        List<Throwable> failures = new ArrayList<>();
+        LoadingCache<Integer, String, IOException> cache = new LoadingCache<>(this::load, this::destroy, failures::add, 2, 1);
+        cache.get(1);
+        cache.get(2);
+        cache.get(1);
+        cache.get(3);
+        assertEquals(destroyed, singletonList("v2"));
+        assertNull(cache.getIfPresent(2));
+        cache.get(4);
+        assertEquals(destroyed, asList("v2", "v1"));
+        assertEquals(cache.getEvictionCount(), 2);
+        assertEquals(cache.getEvictionFailureCount(), 1);
+        assertEquals(failures.size(), 1);
+        assertEquals(failures.get(0).getMessage(), "can't destroy v1");
+    }
+
+    @Test
+    public void invalidateAllDestroysEverythingAndRethrows() throws Exception {
+        LoadingCache<Integer, String, IOException> cache = new LoadingCache<>(this::load, this::destroy, null, 16);
+        for (int i = 10; i < 14; ++i) {
+            cache.get(i);
+        }
+        try {
+            cache.close();
+            fail("expected an exception");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().startsWith("can't destroy v1"));
+            assertEquals(e.getSuppressed().length, 3);
+        }
+        assertEquals(destroyed.size(), 4);
+        assertEquals(cache.size(), 0);
+    }
+
+    @Test
+    public void concurrentCallersShareOneLoad() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        LoadingCache<Integer, String, Exception> cache = new LoadingCache<>(
+                key -> {
+                    started.countDown();
+                    release.await();
+                    return load(key);
+                },
+                null,
+                null,
+                4
+        );
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            Future<?> first = executor.submit(() -> cache.get(-5));
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            Future<?> second = executor.submit(() -> cache.get(-5));
+            Future<?> third = executor.submit(() -> cache.get(-5));
+            Thread.sleep(200);
+            release.countDown();
+            for (Future<?> future : new Future<?>[]{first, second, third}) {
+                try {
+                    future.get();
+                    fail("expected an exception");
+                } catch (ExecutionException e) {
+                    assertTrue(e.getCause() instanceof IOException);
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(loads.get(), 1);
+    }
+
+    @Test
+    public void closedCacheRejectsGet() throws Exception {
+        LoadingCache<Integer, String, IOException> cache = new LoadingCache<>(this::load, this::destroy, null, 4, 1);
+        cache.get(2);
+        cache.close();
+        expectThrows(IllegalStateException.class, () -> cache.get(2));
+        assertEquals(destroyed, singletonList("v2"));
+        assertEquals(loads.get(), 1);
+    }
+
+    @Test
+    public void invalidationDiscardsTheLoadInFlight() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        LoadingCache<Integer, String, Exception> cache = newBlockingCache(started, release);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> future = executor.submit(() -> cache.get(2));
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            cache.invalidate(2);
+            release.countDown();
+            assertEquals(future.get(), "v2");
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(destroyed, singletonList("v2"));
+        assertEquals(loads.get(), 2);
+        assertEquals(cache.size(), 1);
+    }
+
+    @Test
+    public void closingDestroysTheValueOfTheLoadInFlight() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        LoadingCache<Integer, String, Exception> cache = newBlockingCache(started, release);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> future = executor.submit(() -> cache.get(2));
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            cache.close();
+            release.countDown();
+            try {
+                future.get();
+                fail("expected an exception");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof IllegalStateException);
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(destroyed, singletonList("v2"));
+        assertEquals(cache.size(), 0);
+    }
+
+    private LoadingCache<Integer, String, Exception> newBlockingCache(CountDownLatch started, CountDownLatch release) {
+        return new LoadingCache<>(
+                key -> {
+                    started.countDown();
+                    release.await();
+                    return load(key);
+                },
+                this::destroy,
+                null,
+                4
+        );
+    }
+
+}
@@ -0,0 +1,128 @@
+package org.msyu.javautil.exceptions;
+
+import org.testng.annotations.Test;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static org.msyu.javautil.exceptions.Allocations.allocatedBytes;
+import static org.msyu.javautil.exceptions.ParameterizedAutoCloseable.Locks.guard;
+import static org.msyu.javautil.exceptions.ParameterizedAutoCloseable.Locks.readGuard;
+import static org.msyu.javautil.exceptions.ParameterizedAutoCloseable.Locks.writeGuard;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+public class LockGuardTest {
+
+    private static final int ITERATIONS = 100_000;
+
+    private int criticalSections;
+
+    @Test
+    public void lockIsHeldInsideTheBlockAndReleasedAfterIt() {
+        ReentrantLock lock = new ReentrantLock();
+        LockGuard guard = guard(lock);
+        try (LockGuard g = guard.lock()) {
+            assertSame(g, guard);
+            assertTrue(lock.isHeldByCurrentThread());
+        }
+        assertFalse(lock.isLocked());
+    }
+
+    @Test
+    public void tryLockReturnsNullIfTheLockIsHeldElsewhere() throws Exception {
+        ReentrantLock lock = new ReentrantLock();
+        LockGuard guard = guard(lock);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            executor.submit(lock::lock).get();
+            try (LockGuard g = guard.tryLock()) {
+                assertNull(g);
+            }
+            try (LockGuard g = guard.tryLock(1, TimeUnit.MILLISECONDS)) {
+                assertNull(g);
+            }
+            executor.submit(lock::unlock).get();
+        } finally {
+            executor.shutdown();
+        }
+        assertFalse(lock.isLocked());
+    }
+
+    @Test
+    public void readAndWriteGuardsUseTheRespectiveSides() {
+        ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        try (LockGuard g = readGuard(lock).lock()) {
+            assertTrue(lock.getReadHoldCount() == 1 && !lock.isWriteLocked());
+        }
+        try (LockGuard g = writeGuard(lock).lock()) {
+            assertTrue(lock.isWriteLockedByCurrentThread());
+        }
+        assertFalse(lock.isWriteLocked());
+        assertTrue(lock.getReadLockCount() == 0);
+    }
+
+    @Test
+    public void lockDoesNotAllocate() throws Exception {
+        LockGuard guard = guard(new ReentrantLock());
+        assertDoesNotAllocate(() -> {
+            for (int i = 0; i < ITERATIONS; ++i) {
+                try (LockGuard g = guard.lock()) {
+                    ++criticalSections;
+                }
+            }
+        });
+    }
+
+    @Test
+    public void lockInterruptiblyDoesNotAllocate() throws Exception {
+        LockGuard guard = guard(new ReentrantLock());
+        assertDoesNotAllocate(() -> {
+            for (int i = 0; i < ITERATIONS; ++i) {
+                try (LockGuard g = guard.lockInterruptibly()) {
+                    ++criticalSections;
+                }
+            }
+        });
+    }
+
+    @Test
+    public void tryLockWithTimeoutDoesNotAllocate() throws Exception {
+        LockGuard guard = guard(new ReentrantLock());
+        assertDoesNotAllocate(() -> {
+            for (int i = 0; i < ITERATIONS; ++i) {
+                try (LockGuard g = guard.tryLock(1, TimeUnit.SECONDS)) {
+                    assert g != null;
+                }
+            }
+        });
+    }
+
+    @Test
+    public void readWriteGuardsDoNotAllocate() throws Exception {
+        ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        LockGuard readGuard = readGuard(lock);
+        LockGuard writeGuard = writeGuard(lock);
+        assertDoesNotAllocate(() -> {
+            for (int i = 0; i < ITERATIONS; ++i) {
+                try (LockGuard g = readGuard.lock()) {
+                    ++criticalSections;
+                }
+                try (LockGuard g = writeGuard.lock()) {
+                    ++criticalSections;
+                }
+            }
+        });
+    }
+
+    private static void assertDoesNotAllocate(RunnableWithException<?> action) throws Exception {
+        long bytes = allocatedBytes(action);
+        assertTrue(bytes < ITERATIONS, "allocated " + bytes + " bytes in " + ITERATIONS + " iterations");
+    }
+
+}
@@ -0,0 +1,82 @@
+package org.msyu.javautil.exceptions;
+
+import org.mockito.InOrder;
+import org.mockito.Mockito;
+import org.testng.annotations.Test;
+
+import java.util.Iterator;
+import java.util.List;
+
+import static org.msyu.javautil.exceptions.MutableCloseableChain.newMutableCloseableChain;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+
+public class MutableCloseableChainTest extends CloseableChainTestBase {
+
+    @Test
+    public void verifyOrderWithNoExceptionsAcrossReuse() throws Exception {
+        MutableCloseableChain<Exception> chain = newMutableCloseableChain();
+        for (int i = 0; i < 2; ++i) {
+            Dummy first = chain.chain(null, __ -> new Dummy(false, false), Dummy::close);
+            Dummy second = chain.chain(first, prev -> new Dummy(false, false, prev), Dummy::close);
+
+            assertNotNull(second);
+            assertEquals(chain.size(), 2);
+
+            chain.close();
+
+            assertEquals(chain.size(), 0);
+        }
+
+        InOrder inOrder = Mockito.inOrder(tracer);
+        for (int i = 0; i < 2; ++i) {
+            inOrder.verify(tracer).constructorSucceeds(1);
+            inOrder.verify(tracer).constructorSucceeds(2);
+            inOrder.verify(tracer).destructorSucceeds(2);
+            inOrder.verify(tracer).destructorSucceeds(1);
+        }
+        inOrder.verifyNoMoreInteractions();
+    }
+
+    @Test
+    public void resetForgetsLinksWithoutClosingThem() throws Exception {
+        MutableCloseableChain<Exception> chain = new MutableCloseableChain<>(0);
+        chain.chain(null, __ -> new Dummy(false, false), Dummy::close);
+        chain.reset();
+        chain.close();
+
+        assertEquals(chain.size(), 0);
+        Mockito.verify(tracer).constructorSucceeds(1);
+        Mockito.verifyNoMoreInteractions(tracer);
+    }
+
+    @Test(dataProvider = "exhaustiveTests", dataProviderClass = CloseableChainTest.class)
+    public void test(List<Boolean> dummyParameters, String expectedException, List<String> expectedSuppressedExceptions) {
+        assert dummyParameters.size() % 2 == 0 : "dummy parameter list size must be even";
+        assert (expectedException == null) == (expectedSuppressedExceptions == null) :
+                "expected exception parameters must be present or absent together";
+
+        MutableCloseableChain<Exception> chain = new MutableCloseableChain<>(1);
+        try {
+            Dummy output = null;
+            Iterator<Boolean> dummyParameterIterator = dummyParameters.iterator();
+            while (dummyParameterIterator.hasNext()) {
+                boolean constructorThrows = dummyParameterIterator.next();
+                boolean destructorThrows = dummyParameterIterator.next();
+                output = chain.chain(output, prev -> new Dummy(constructorThrows, destructorThrows, prev), Dummy::close);
+            }
+
+            assert (output == null) == dummyParameters.isEmpty() : "expected the chain to construct something";
+            assertEquals(levelCounter, dummyParameters.size() / 2, "amount of constructed objects");
+
+            chain.close();
+
+            assert expectedException == null : "expected an exception, but none was thrown";
+        } catch (Exception e) {
+            assert expectedException != null : "expected no exception, but one or more was thrown";
+            checkRootAndSuppressedExceptions(e, expectedException, expectedSuppressedExceptions);
+        }
+        assertEquals(chain.size(), 0, "links left after closing");
+    }
+
+}
@@ -0,0 +1,135 @@
+package org.msyu.javautil.exceptions;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.msyu.javautil.exceptions.CloseableChain.newCloseableChain;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.expectThrows;
+
+public class ObjectPoolTest {
+
+    private AtomicInteger created;
+
+    private List<Integer> destroyed;
+
+    @BeforeMethod
+    public void setUp() {
+        created = new AtomicInteger();
+        destroyed = Collections.synchronizedList(new ArrayList<>());
+    }
+
+    private ObjectPool<Integer, Exception> newPool(int maxSize, long maxIdleMillis) {
+        return new ObjectPool<>(
+                created::incrementAndGet,
+                destroyed::add,
+                object -> object % 2 == 1,
+                maxSize,
+                maxIdleMillis,
+                TimeUnit.MILLISECONDS
+        );
+    }
+
+    @Test
+    public void returnedObjectsAreReused() throws Exception {
+        ObjectPool<Integer, Exception> pool = newPool(2, 10_000);
+        ObjectPool.Lease<Integer, Exception> first = pool.lease();
+        Integer object = first.get();
+        first.close();
+
+        try (ObjectPool.Lease<Integer, Exception> second = pool.lease()) {
+            assertSame(second.get(), object);
+        }
+        assertEquals(created.get(), 1);
+        assertEquals(pool.getIdleCount(), 1);
+    }
+
+    @Test
+    public void closingAStaleLeaseDoesNotReturnTheObjectOfTheNextLease() throws Exception {
+        ObjectPool<Integer, Exception> pool = newPool(2, 10_000);
+        ObjectPool.Lease<Integer, Exception> first = pool.lease();
+        first.close();
+        ObjectPool.Lease<Integer, Exception> second = pool.lease();
+        assertNotSame(second, first);
+
+        first.close();
+        expectThrows(IllegalStateException.class, first::get);
+        assertEquals(pool.getIdleCount(), 0);
+        assertEquals(second.get(), Integer.valueOf(1));
+
+        second.close();
+        assertEquals(pool.getIdleCount(), 1);
+        assertEquals(created.get(), 1);
+    }
+
+    @Test
+    public void invalidObjectsAreDestroyed() throws Exception {
+        ObjectPool<Integer, Exception> pool = newPool(2, 10_000);
+        try (ObjectPool.Lease<Integer, Exception> lease = pool.lease()) {
+            lease.invalidate();
+        }
+        try (ObjectPool.Lease<Integer, Exception> lease = pool.lease()) {
+            assertEquals(lease.get(), Integer.valueOf(2));
+        }
+        assertEquals(destroyed, Arrays.asList(1, 2));
+        assertEquals(pool.getIdleCount(), 0);
+    }
+
+    @Test
+    public void leasingIsBounded() throws Exception {
+        ObjectPool<Integer, Exception> pool = newPool(1, 10_000);
+        try (ObjectPool.Lease<Integer, Exception> lease = pool.lease()) {
+            assertNull(pool.tryLease(10, TimeUnit.MILLISECONDS));
+        }
+        try (ObjectPool.Lease<Integer, Exception> lease = pool.tryLease(10, TimeUnit.MILLISECONDS)) {
+            assertEquals(lease.get(), Integer.valueOf(1));
+        }
+    }
+
+    @Test
+    public void staleObjectsAreEvicted() throws Exception {
+        ObjectPool<Integer, Exception> pool = newPool(2, 0);
+        pool.lease().close();
+        pool.evictIdle();
+        assertEquals(destroyed, Collections.singletonList(1));
+        assertEquals(pool.getIdleCount(), 0);
+    }
+
+    @Test
+    public void closingThePoolDestroysIdleAndReturnedObjects() throws Exception {
+        ObjectPool<Integer, Exception> pool = newPool(2, 10_000);
+        ObjectPool.Lease<Integer, Exception> first = pool.lease();
+        ObjectPool.Lease<Integer, Exception> second = pool.lease();
+        assertNotSame(first, second);
+        first.close();
+
+        pool.close();
+        second.close();
+
+        assertEquals(destroyed, Arrays.asList(1, 2));
+    }
+
+    @Test
+    public void leasesCanBeChainLinks() throws Exception {
+        ObjectPool<Integer, Exception> pool = newPool(2, 10_000);
+        CloseableChain<ObjectPool.Lease<Integer, Exception>, Exception> chain = newCloseableChain()
+                .chain(__ -> pool.lease(), ObjectPool.Lease::close);
+
+        assertEquals(chain.getOutput().get(), Integer.valueOf(1));
+        CloseableChain.close(chain);
+
+        assertEquals(pool.getIdleCount(), 1);
+        assertEquals(destroyed, Collections.emptyList());
+    }
+
+}
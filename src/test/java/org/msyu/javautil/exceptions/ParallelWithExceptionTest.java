@@ -0,0 +1,91 @@
+package org.msyu.javautil.exceptions;
+
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class ParallelWithExceptionTest {
+
+    private static List<Integer> range(int size) {
+        List<Integer> items = new ArrayList<>(size);
+        for (int i = 0; i < size; ++i) {
+            items.add(i);
+        }
+        return items;
+    }
+
+    @Test
+    public void mapPreservesOrder() throws Exception {
+        List<Integer> items = range(1000);
+        List<String> results = ParallelWithException.map(items, i -> "r" + i, false);
+        assertEquals(results.size(), 1000);
+        for (int i = 0; i < 1000; ++i) {
+            assertEquals(results.get(i), "r" + i);
+        }
+    }
+
+    @Test
+    public void forEachVisitsEveryItem() throws Exception {
+        Set<Integer> visited = ConcurrentHashMap.newKeySet();
+        ParallelWithException.forEach(range(1000), visited::add, false);
+        assertEquals(visited, new HashSet<>(range(1000)));
+    }
+
+    @Test
+    public void allFailuresAreReportedWithTheirType() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            ParallelWithException.forEach(
+                    range(100).spliterator(),
+                    i -> {
+                        if (i % 10 == 0) {
+                            throw new IOException("failed " + i);
+                        }
+                    },
+                    false,
+                    pool
+            );
+            fail("expected an exception");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().startsWith("failed "));
+            assertEquals(e.getSuppressed().length, 9);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void failFastSkipsRemainingItems() {
+        AtomicInteger applied = new AtomicInteger();
+        ForkJoinPool pool = new ForkJoinPool(1);
+        try {
+            ParallelWithException.map(
+                    range(1000),
+                    i -> {
+                        applied.incrementAndGet();
+                        throw new IOException("failed " + i);
+                    },
+                    true,
+                    pool
+            );
+            fail("expected an exception");
+        } catch (IOException e) {
+            assertEquals(e.getSuppressed().length, applied.get() - 1);
+        } finally {
+            pool.shutdown();
+        }
+        assertTrue(applied.get() < 1000);
+    }
+
+}
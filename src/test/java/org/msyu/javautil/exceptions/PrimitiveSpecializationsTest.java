@@ -0,0 +1,133 @@
+package org.msyu.javautil.exceptions;
+
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.fail;
+
+public class PrimitiveSpecializationsTest {
+
+    private static final IOException FAILURE = new IOException("negative");
+
+    private static void expectFailure(RunnableWithException<IOException> action) {
+        try {
+            action.run();
+            fail("expected an exception");
+        } catch (IOException e) {
+            assertSame(e, FAILURE);
+        }
+    }
+
+    private static void check(boolean negative) throws IOException {
+        if (negative) {
+            throw FAILURE;
+        }
+    }
+
+    @Test
+    public void consumers() throws Exception {
+        List<Object> accepted = new ArrayList<>();
+        IntConsumerWithException<IOException> intConsumer = IntConsumerWithException.unboxed(
+                ((IntConsumerWithException<IOException>) i -> { check(i < 0); accepted.add(i); }).boxed());
+        LongConsumerWithException<IOException> longConsumer = LongConsumerWithException.unboxed(
+                ((LongConsumerWithException<IOException>) l -> { check(l < 0); accepted.add(l); }).boxed());
+        DoubleConsumerWithException<IOException> doubleConsumer = DoubleConsumerWithException.unboxed(
+                ((DoubleConsumerWithException<IOException>) d -> { check(d < 0); accepted.add(d); }).boxed());
+        intConsumer.accept(Integer.MAX_VALUE);
+        longConsumer.accept(Long.MAX_VALUE);
+        doubleConsumer.accept(Double.MAX_VALUE);
+        assertEquals(accepted, Arrays.asList(Integer.MAX_VALUE, Long.MAX_VALUE, Double.MAX_VALUE));
+        expectFailure(() -> intConsumer.accept(-1));
+        expectFailure(() -> longConsumer.accept(-1));
+        expectFailure(() -> doubleConsumer.accept(-1));
+    }
+
+    @Test
+    public void suppliers() throws Exception {
+        boolean[] negative = {false};
+        IntSupplierWithException<IOException> intSupplier = IntSupplierWithException.unboxed(
+                ((IntSupplierWithException<IOException>) () -> { check(negative[0]); return Integer.MIN_VALUE; }).boxed());
+        LongSupplierWithException<IOException> longSupplier = LongSupplierWithException.unboxed(
+                ((LongSupplierWithException<IOException>) () -> { check(negative[0]); return Long.MIN_VALUE; }).boxed());
+        DoubleSupplierWithException<IOException> doubleSupplier = DoubleSupplierWithException.unboxed(
+                ((DoubleSupplierWithException<IOException>) () -> { check(negative[0]); return Double.MIN_VALUE; }).boxed());
+        BooleanSupplierWithException<IOException> booleanSupplier = BooleanSupplierWithException.unboxed(
+                ((BooleanSupplierWithException<IOException>) () -> { check(negative[0]); return true; }).boxed());
+        assertEquals(intSupplier.getAsInt(), Integer.MIN_VALUE);
+        assertEquals(longSupplier.getAsLong(), Long.MIN_VALUE);
+        assertEquals(doubleSupplier.getAsDouble(), Double.MIN_VALUE);
+        assertEquals(booleanSupplier.getAsBoolean(), true);
+        negative[0] = true;
+        expectFailure(intSupplier::getAsInt);
+        expectFailure(longSupplier::getAsLong);
+        expectFailure(doubleSupplier::getAsDouble);
+        expectFailure(booleanSupplier::getAsBoolean);
+    }
+
+    @Test
+    public void functionsFromPrimitives() throws Exception {
+        IntFunctionWithException<String, IOException> intFunction = IntFunctionWithException.unboxed(
+                ((IntFunctionWithException<String, IOException>) i -> { check(i < 0); return "i" + i; }).boxed());
+        LongFunctionWithException<String, IOException> longFunction = LongFunctionWithException.unboxed(
+                ((LongFunctionWithException<String, IOException>) l -> { check(l < 0); return "l" + l; }).boxed());
+        DoubleFunctionWithException<String, IOException> doubleFunction = DoubleFunctionWithException.unboxed(
+                ((DoubleFunctionWithException<String, IOException>) d -> { check(d < 0); return "d" + d; }).boxed());
+        assertEquals(intFunction.apply(7), "i7");
+        assertEquals(longFunction.apply(Long.MAX_VALUE), "l" + Long.MAX_VALUE);
+        assertEquals(doubleFunction.apply(0.5), "d0.5");
+        expectFailure(() -> intFunction.apply(-1));
+        expectFailure(() -> longFunction.apply(-1));
+        expectFailure(() -> doubleFunction.apply(-1));
+    }
+
+    @Test
+    public void functionsToPrimitives() throws Exception {
+        ToIntFunctionWithException<String, IOException> toInt = ToIntFunctionWithException.unboxed(
+                ((ToIntFunctionWithException<String, IOException>) s -> { check(s.startsWith("-")); return s.length(); }).boxed());
+        ToLongFunctionWithException<String, IOException> toLong = ToLongFunctionWithException.unboxed(
+                ((ToLongFunctionWithException<String, IOException>) s -> { check(s.startsWith("-")); return Long.parseLong(s); }).boxed());
+        ToDoubleFunctionWithException<String, IOException> toDouble = ToDoubleFunctionWithException.unboxed(
+                ((ToDoubleFunctionWithException<String, IOException>) s -> { check(s.startsWith("-")); return Double.parseDouble(s); }).boxed());
+        assertEquals(toInt.applyAsInt("abc"), 3);
+        assertEquals(toLong.applyAsLong("9223372036854775807"), Long.MAX_VALUE);
+        assertEquals(toDouble.applyAsDouble("0.25"), 0.25);
+        expectFailure(() -> toInt.applyAsInt("-1"));
+        expectFailure(() -> toLong.applyAsLong("-1"));
+        expectFailure(() -> toDouble.applyAsDouble("-1"));
+    }
+
+    @Test
+    public void functionsBetweenPrimitives() throws Exception {
+        IntToLongFunctionWithException<IOException> intToLong = IntToLongFunctionWithException.unboxed(
+                ((IntToLongFunctionWithException<IOException>) i -> { check(i < 0); return i * 10L; }).boxed());
+        IntToDoubleFunctionWithException<IOException> intToDouble = IntToDoubleFunctionWithException.unboxed(
+                ((IntToDoubleFunctionWithException<IOException>) i -> { check(i < 0); return i / 4.0; }).boxed());
+        LongToIntFunctionWithException<IOException> longToInt = LongToIntFunctionWithException.unboxed(
+                ((LongToIntFunctionWithException<IOException>) l -> { check(l < 0); return (int) (l >>> 32); }).boxed());
+        LongToDoubleFunctionWithException<IOException> longToDouble = LongToDoubleFunctionWithException.unboxed(
+                ((LongToDoubleFunctionWithException<IOException>) l -> { check(l < 0); return l / 4.0; }).boxed());
+        DoubleToIntFunctionWithException<IOException> doubleToInt = DoubleToIntFunctionWithException.unboxed(
+                ((DoubleToIntFunctionWithException<IOException>) d -> { check(d < 0); return (int) d; }).boxed());
+        DoubleToLongFunctionWithException<IOException> doubleToLong = DoubleToLongFunctionWithException.unboxed(
+                ((DoubleToLongFunctionWithException<IOException>) d -> { check(d < 0); return (long) d; }).boxed());
+        assertEquals(intToLong.applyAsLong(Integer.MAX_VALUE), Integer.MAX_VALUE * 10L);
+        assertEquals(intToDouble.applyAsDouble(1), 0.25);
+        assertEquals(longToInt.applyAsInt(Long.MAX_VALUE), Integer.MAX_VALUE);
+        assertEquals(longToDouble.applyAsDouble(1), 0.25);
+        assertEquals(doubleToInt.applyAsInt(3.75), 3);
+        assertEquals(doubleToLong.applyAsLong(1e15), 1_000_000_000_000_000L);
+        expectFailure(() -> intToLong.applyAsLong(-1));
+        expectFailure(() -> intToDouble.applyAsDouble(-1));
+        expectFailure(() -> longToInt.applyAsInt(-1));
+        expectFailure(() -> longToDouble.applyAsDouble(-1));
+        expectFailure(() -> doubleToInt.applyAsInt(-1));
+        expectFailure(() -> doubleToLong.applyAsLong(-1));
+    }
+
+}
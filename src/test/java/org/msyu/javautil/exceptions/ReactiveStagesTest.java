@@ -0,0 +1,283 @@
+package org.msyu.javautil.exceptions;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.msyu.javautil.exceptions.CloseableChain.newCloseableChain;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class ReactiveStagesTest {
+
+    private final List<String> closed = Collections.synchronizedList(new ArrayList<>());
+
+    private long sum;
+
+    @BeforeMethod
+    public void reset() {
+        closed.clear();
+        sum = 0;
+    }
+
+    /**
+     * Synchronously emits the integers from 0 until {@code size}, respecting the demand.
+     */
+    private static final class RangePublisher implements Publisher<Integer> {
+
+        private final int size;
+
+        private long maxOutstanding;
+
+        private boolean cancelled;
+
+        private RangePublisher(int size) {
+            this.size = size;
+        }
+
+        @Override
+        public void subscribe(Subscriber<? super Integer> subscriber) {
+            subscriber.onSubscribe(new Subscription() {
+                private long requested;
+                private int next;
+                private boolean emitting;
+
+                @Override
+                public void request(long n) {
+                    requested += n;
+                    maxOutstanding = Math.max(maxOutstanding, requested);
+                    if (emitting) {
+                        return;
+                    }
+                    emitting = true;
+                    while (requested > 0 && next < size && !cancelled) {
+                        --requested;
+                        subscriber.onNext(next++);
+                    }
+                    if (next == size && !cancelled) {
+                        cancelled = true;
+                        subscriber.onComplete();
+                    }
+                    emitting = false;
+                }
+
+                @Override
+                public void cancel() {
+                    cancelled = true;
+                }
+            });
+        }
+
+    }
+
+    private static final Subscription NO_OP_SUBSCRIPTION = new Subscription() {
+        @Override
+        public void request(long n) {
+        }
+
+        @Override
+        public void cancel() {
+        }
+    };
+
+    private CloseableChain<String, Exception> resources(String name) throws Exception {
+        return newCloseableChain().chain(v -> name, closed::add);
+    }
+
+    @Test
+    public void transformsAndConsumesWithBoundedDemand() throws Exception {
+        RangePublisher publisher = new RangePublisher(1_000_000);
+        FunctionProcessor<Integer, Long, RuntimeException> processor =
+                new FunctionProcessor<>(i -> i % 2 == 0 ? (long) i : null, resources("processor"));
+        ConsumerSubscriber<Long, RuntimeException> subscriber =
+                new ConsumerSubscriber<>(i -> sum += i, 64, resources("subscriber"));
+        publisher.subscribe(processor);
+        processor.subscribe(subscriber);
+        assertTrue(subscriber.await(10, TimeUnit.SECONDS));
+        assertEquals(sum, 249_999_500_000L);
+        assertTrue(publisher.maxOutstanding <= 64, "max outstanding " + publisher.maxOutstanding);
+        assertEquals(closed, asList("processor", "subscriber"));
+    }
+
+    @Test
+    public void functionFailureCancelsUpstreamAndKeepsItsType() throws Exception {
+        RangePublisher publisher = new RangePublisher(100);
+        IOException failure = new IOException("bad item");
+        FunctionProcessor<Integer, Integer, IOException> processor = new FunctionProcessor<>(
+                i -> {
+                    if (i == 5) {
+                        throw failure;
+                    }
+                    return i;
+                },
+                resources("processor")
+        );
+        ConsumerSubscriber<Integer, IOException> subscriber = new ConsumerSubscriber<>(i -> sum += i, 16, null);
+        processor.subscribe(subscriber);
+        publisher.subscribe(processor);
+        try {
+            subscriber.await();
+            fail("expected an exception");
+        } catch (IOException e) {
+            assertSame(e, failure);
+        }
+        assertTrue(publisher.cancelled);
+        assertEquals(sum, 10);
+        assertEquals(closed, singletonList("processor"));
+    }
+
+    @Test
+    public void consumerFailureIsSuppressingDestructorFailures() throws Exception {
+        RangePublisher publisher = new RangePublisher(100);
+        CloseableChain<String, Exception> resources = newCloseableChain().chain(
+                v -> "resource",
+                r -> {
+                    throw new Exception("can't close " + r);
+                }
+        );
+        ConsumerSubscriber<Integer, IOException> subscriber = new ConsumerSubscriber<>(
+                i -> {
+                    throw new IOException("can't consume " + i);
+                },
+                16,
+                resources
+        );
+        publisher.subscribe(subscriber);
+        try {
+            subscriber.await();
+            fail("expected an exception");
+        } catch (IOException e) {
+            assertEquals(e.getMessage(), "can't consume 0");
+            assertEquals(e.getSuppressed()[0].getMessage(), "can't close resource");
+        }
+        assertTrue(publisher.cancelled);
+    }
+
+    @Test
+    public void downstreamCancellationClosesTheChain() throws Exception {
+        RangePublisher publisher = new RangePublisher(100);
+        FunctionProcessor<Integer, Integer, RuntimeException> processor =
+                new FunctionProcessor<>(i -> i, resources("processor"));
+        publisher.subscribe(processor);
+        processor.subscribe(new Subscriber<Integer>() {
+            @Override
+            public void onSubscribe(Subscription s) {
+                s.cancel();
+            }
+
+            @Override
+            public void onNext(Integer integer) {
+            }
+
+            @Override
+            public void onError(Throwable t) {
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+        assertTrue(publisher.cancelled);
+        assertEquals(closed, singletonList("processor"));
+    }
+
+    @Test
+    public void cancellationDuringOnNextDefersClosingTheChain() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        FunctionProcessor<Integer, Integer, InterruptedException> processor = new FunctionProcessor<>(
+                i -> {
+                    entered.countDown();
+                    release.await();
+                    return i;
+                },
+                resources("processor")
+        );
+        AtomicReference<Subscription> downstream = new AtomicReference<>();
+        processor.onSubscribe(NO_OP_SUBSCRIPTION);
+        processor.subscribe(new Subscriber<Integer>() {
+            @Override
+            public void onSubscribe(Subscription s) {
+                downstream.set(s);
+            }
+
+            @Override
+            public void onNext(Integer integer) {
+            }
+
+            @Override
+            public void onError(Throwable t) {
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+        Thread upstream = new Thread(() -> processor.onNext(1));
+        upstream.start();
+        assertTrue(entered.await(10, TimeUnit.SECONDS));
+        downstream.get().cancel();
+        assertEquals(closed, Collections.emptyList());
+        release.countDown();
+        upstream.join(TimeUnit.SECONDS.toMillis(10));
+        assertEquals(closed, singletonList("processor"));
+    }
+
+    @Test
+    public void subscriberCancellationDuringOnNextDefersClosingTheChain() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ConsumerSubscriber<Integer, InterruptedException> subscriber = new ConsumerSubscriber<>(
+                i -> {
+                    entered.countDown();
+                    release.await();
+                },
+                16,
+                resources("subscriber")
+        );
+        subscriber.onSubscribe(NO_OP_SUBSCRIPTION);
+        Thread upstream = new Thread(() -> subscriber.onNext(1));
+        upstream.start();
+        assertTrue(entered.await(10, TimeUnit.SECONDS));
+        subscriber.cancel();
+        assertEquals(closed, Collections.emptyList());
+        release.countDown();
+        try {
+            subscriber.await(10, TimeUnit.SECONDS);
+            fail("expected an exception");
+        } catch (CancellationException expected) {
+        }
+        assertEquals(closed, singletonList("subscriber"));
+    }
+
+    @Test
+    public void cancelledSubscriberReportsCancellation() throws Exception {
+        RangePublisher publisher = new RangePublisher(100);
+        ConsumerSubscriber<Integer, RuntimeException> subscriber = new ConsumerSubscriber<>(i -> {}, 16, resources("subscriber"));
+        subscriber.cancel();
+        publisher.subscribe(subscriber);
+        try {
+            subscriber.await();
+            fail("expected an exception");
+        } catch (CancellationException expected) {
+        }
+        assertTrue(publisher.cancelled);
+        assertEquals(closed, singletonList("subscriber"));
+    }
+
+}
@@ -0,0 +1,101 @@
+package org.msyu.javautil.exceptions;
+
+import org.testng.annotations.Test;
+
+import java.util.Iterator;
+import java.util.List;
+
+import static org.msyu.javautil.exceptions.Allocations.allocatedBytes;
+import static org.msyu.javautil.exceptions.RecyclingCloseableChain.newRecyclingCloseableChain;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.expectThrows;
+
+public class RecyclingCloseableChainTest extends CloseableChainTestBase {
+
+    private static final int ITERATIONS = 100_000;
+
+    private final RecyclingCloseableChain.LinkPool recycling = new RecyclingCloseableChain.LinkPool(256, false);
+
+    private final RecyclingCloseableChain.LinkPool poisoning = new RecyclingCloseableChain.LinkPool(256, true);
+
+    @Test(dataProvider = "exhaustiveTests", dataProviderClass = CloseableChainTest.class)
+    public void test(List<Boolean> dummyParameters, String expectedException, List<String> expectedSuppressedExceptions) {
+        // the second round runs on links recycled by the first one
+        for (int round = 0; round < 2; ++round) {
+            levelCounter = 0;
+            RecyclingCloseableChain<?, Exception> chain = newRecyclingCloseableChain(recycling);
+            try {
+                Iterator<Boolean> dummyParameterIterator = dummyParameters.iterator();
+                while (dummyParameterIterator.hasNext()) {
+                    boolean constructorThrows = dummyParameterIterator.next();
+                    boolean destructorThrows = dummyParameterIterator.next();
+                    chain = chain.chain(prev -> new Dummy(constructorThrows, destructorThrows, prev), Dummy::close);
+                }
+                assertEquals(levelCounter, dummyParameters.size() / 2, "amount of constructed objects");
+                RecyclingCloseableChain.close(chain);
+                assert expectedException == null : "expected an exception, but none was thrown";
+            } catch (Exception e) {
+                assert expectedException != null : "expected no exception, but one or more was thrown";
+                checkRootAndSuppressedExceptions(e, expectedException, expectedSuppressedExceptions);
+            }
+            assertEquals(levelCounter, 0, "amount of objects left open");
+        }
+    }
+
+    @Test
+    public void closedLinksAreReused() throws Exception {
+        RecyclingCloseableChain<String, RuntimeException> first =
+                RecyclingCloseableChain.<RuntimeException>newRecyclingCloseableChain(recycling).chain(__ -> "first", s -> {});
+        RecyclingCloseableChain.close(first);
+        RecyclingCloseableChain<String, RuntimeException> second =
+                RecyclingCloseableChain.<RuntimeException>newRecyclingCloseableChain(recycling).chain(__ -> "second", s -> {});
+        assertSame(second, first);
+        assertEquals(second.getOutput(), "second");
+        RecyclingCloseableChain.close(second);
+    }
+
+    @Test
+    public void poisonedLinksDetectUseAfterClose() throws Exception {
+        RecyclingCloseableChain<String, RuntimeException> chain =
+                RecyclingCloseableChain.<RuntimeException>newRecyclingCloseableChain(poisoning).chain(__ -> "output", s -> {});
+        RecyclingCloseableChain.close(chain);
+        RecyclingCloseableChain<String, RuntimeException> other =
+                RecyclingCloseableChain.<RuntimeException>newRecyclingCloseableChain(poisoning).chain(__ -> "other", s -> {});
+        expectThrows(IllegalStateException.class, chain::getOutput);
+        expectThrows(IllegalStateException.class, () -> chain.chain(s -> s, s -> {}));
+        expectThrows(IllegalStateException.class, () -> RecyclingCloseableChain.close(chain));
+        assertEquals(other.getOutput(), "other");
+        RecyclingCloseableChain.close(other);
+    }
+
+    @Test
+    public void defaultPoolPoisonsLinksWhenAssertionsAreEnabled() {
+        boolean assertionsEnabled = RecyclingCloseableChain.class.desiredAssertionStatus();
+        RecyclingCloseableChain<String, RuntimeException> chain =
+                RecyclingCloseableChain.<RuntimeException>newRecyclingCloseableChain().chain(__ -> "output", s -> {});
+        RecyclingCloseableChain.close(chain);
+        RecyclingCloseableChain<String, RuntimeException> other =
+                RecyclingCloseableChain.<RuntimeException>newRecyclingCloseableChain().chain(__ -> "other", s -> {});
+        assertEquals(other != chain, assertionsEnabled);
+        RecyclingCloseableChain.close(other);
+    }
+
+    @Test
+    public void recyclingChainsDoNotAllocate() throws Exception {
+        long bytes = allocatedBytes(() -> {
+            for (int i = 0; i < ITERATIONS; ++i) {
+                RecyclingCloseableChain<String, RuntimeException> chain =
+                        RecyclingCloseableChain.<RuntimeException>newRecyclingCloseableChain(recycling)
+                                .chain(__ -> "a", s -> {})
+                                .chain(s -> "b", s -> {})
+                                .chainEffects(s -> {}, s -> {})
+                                .chain(s -> "c", s -> {});
+                RecyclingCloseableChain.close(chain);
+            }
+        });
+        assertTrue(bytes < ITERATIONS, "allocated " + bytes + " bytes");
+    }
+
+}
@@ -0,0 +1,93 @@
+package org.msyu.javautil.exceptions;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+
+import static org.msyu.javautil.exceptions.AutoCloseableWrapper.runOnClose;
+import static org.msyu.javautil.exceptions.CloseableChain.newCloseableChain;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.fail;
+
+public class ResourceListenerTest extends CloseableChainTestBase {
+
+    private HistogramResourceListener listener;
+
+    @BeforeMethod
+    public void setUpListener() {
+        listener = new HistogramResourceListener();
+    }
+
+    @Test
+    public void reportsDestructionFailuresAndSuppressedExceptions() throws Exception {
+        CloseableChain<Dummy, Exception> chain = newCloseableChain(listener)
+                .chain(__ -> new Dummy(false, true), Dummy::close)
+                .chain(prev -> new Dummy(false, false, prev), Dummy::close)
+                .chain(prev -> new Dummy(false, true, prev), Dummy::close);
+        try {
+            CloseableChain.close(chain);
+            fail("expected an exception");
+        } catch (Exception e) {
+            checkRootAndSuppressedExceptions(e, "d3", Arrays.asList("d1"));
+        }
+
+        assertEquals(sum(listener.getConstructionHistogram()), 3);
+        assertEquals(sum(listener.getDestructionHistogram()), 3);
+        assertEquals(listener.getConstructionFailureCount(), 0);
+        assertEquals(listener.getDestructionFailureCount(), 2);
+        assertEquals(listener.getSuppressedExceptionCount(), 1);
+    }
+
+    @Test
+    public void reportsExceptionsSuppressedThroughACollector() throws Exception {
+        CloseableChain<Dummy, Exception> chain = newCloseableChain(listener)
+                .chain(__ -> new Dummy(false, true), Dummy::close)
+                .chain(prev -> new Dummy(false, true, prev), Dummy::close);
+        SuppressionCollector collector = new SuppressionCollector(4);
+        CloseableChain.close(chain, collector);
+        assertEquals(listener.getSuppressedExceptionCount(), 0);
+
+        collector.attachTo(new Exception("primary"));
+        assertEquals(listener.getDestructionFailureCount(), 2);
+        assertEquals(listener.getSuppressedExceptionCount(), 2);
+    }
+
+    @Test
+    public void reportsConstructionFailures() {
+        try {
+            newCloseableChain(listener)
+                    .chain(__ -> new Dummy(false, true), Dummy::close)
+                    .chain(prev -> new Dummy(true, false, prev), Dummy::close);
+            fail("expected an exception");
+        } catch (Exception e) {
+            checkRootAndSuppressedExceptions(e, "c2", Arrays.asList("d1"));
+        }
+
+        assertEquals(sum(listener.getConstructionHistogram()), 2);
+        assertEquals(listener.getConstructionFailureCount(), 1);
+        assertEquals(listener.getDestructionFailureCount(), 1);
+        assertEquals(listener.getSuppressedExceptionCount(), 1);
+    }
+
+    @Test
+    public void reportsAutoCloseableWrappers() {
+        try (AutoCloseableWrapper<RuntimeException> acw = runOnClose(() -> {}, listener)) {
+            ExampleUtils.youAreAPirate(acw);
+        }
+        assertEquals(sum(listener.getDestructionHistogram()), 1);
+        assertEquals(listener.getDestructionFailureCount(), 0);
+    }
+
+    @Test
+    public void bucketBounds() {
+        assertEquals(HistogramResourceListener.getBucketUpperBound(0), 1);
+        assertEquals(HistogramResourceListener.getBucketUpperBound(10), 1024);
+        assertEquals(HistogramResourceListener.getBucketUpperBound(HistogramResourceListener.BUCKET_COUNT - 1), Long.MAX_VALUE);
+    }
+
+    private static long sum(long[] histogram) {
+        return Arrays.stream(histogram).sum();
+    }
+
+}
@@ -0,0 +1,98 @@
+package org.msyu.javautil.exceptions;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.msyu.javautil.exceptions.CloseableChain.newCloseableChain;
+import static org.msyu.javautil.exceptions.CloseableChainTestBase.checkRootAndSuppressedExceptions;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class ResourceScopeTest {
+
+    private ExecutorService executor;
+
+    private List<String> events;
+
+    @BeforeMethod
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+        events = Collections.synchronizedList(new ArrayList<>());
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void chainIsClosedAfterAllSubtasksFinish() throws Exception {
+        AtomicInteger counter = new AtomicInteger();
+        try (ResourceScope<AtomicInteger, Exception> scope = new ResourceScope<>(
+                newCloseableChain().chain(__ -> counter, c -> events.add("closed after " + c.get())),
+                executor
+        )) {
+            for (int i = 0; i < 1000; ++i) {
+                scope.fork(c -> {
+                    Thread.sleep(0, 1000);
+                    c.incrementAndGet();
+                });
+            }
+        }
+        assertEquals(events, Collections.singletonList("closed after 1000"));
+    }
+
+    @Test
+    public void failureCancelsSiblingsAndSuppressesDestructorFailures() throws Exception {
+        CountDownLatch siblingStarted = new CountDownLatch(1);
+        ResourceScope<String, Exception> scope = new ResourceScope<>(
+                newCloseableChain()
+                        .chain(__ -> "a", output -> { throw new Exception("d1"); })
+                        .chain(__ -> "b", output -> { throw new Exception("d2"); }),
+                executor
+        );
+        scope.fork(output -> {
+            siblingStarted.countDown();
+            try {
+                Thread.sleep(TimeUnit.SECONDS.toMillis(30));
+            } catch (InterruptedException e) {
+                events.add("sibling cancelled");
+                throw new Exception("s2");
+            }
+        });
+        assertTrue(siblingStarted.await(10, TimeUnit.SECONDS));
+        scope.fork(output -> {
+            throw new Exception("s1");
+        });
+        scope.join();
+        scope.fork(output -> events.add("forked after failure"));
+
+        try {
+            scope.close();
+            fail("expected an exception");
+        } catch (Exception e) {
+            checkRootAndSuppressedExceptions(e, "s1", Arrays.asList("s2", "d2", "d1"));
+        }
+        assertEquals(events, Collections.singletonList("sibling cancelled"));
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void cannotForkAfterClose() throws Exception {
+        ResourceScope<Void, Exception> scope = new ResourceScope<>(newCloseableChain(), executor);
+        scope.close();
+        scope.fork(__ -> {});
+    }
+
+}
@@ -0,0 +1,133 @@
+package org.msyu.javautil.exceptions;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.fail;
+
+public class RetryAndCircuitBreakerTest {
+
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @BeforeMethod
+    public void reset() {
+        calls.set(0);
+    }
+
+    private String failUntil(int successfulCall) throws IOException {
+        int call = calls.incrementAndGet();
+        if (call < successfulCall) {
+            throw new IOException("call " + call);
+        }
+        return "call " + call;
+    }
+
+    @Test
+    public void retriesUntilSuccess() throws Exception {
+        SupplierWithException<String, IOException> supplier = () -> failUntil(3);
+        RetryPolicy<IOException> policy = RetryPolicy.retryOn(IOException.class, 5)
+                .withBackoff(1, 10, TimeUnit.MILLISECONDS, 2)
+                .withJitter(0.5);
+        assertEquals(supplier.withRetry(policy).get(), "call 3");
+    }
+
+    @Test
+    public void lastFailureSuppressesPreviousAttempts() {
+        FunctionWithException<Integer, String, IOException> function = this::failUntil;
+        try {
+            function.withRetry(RetryPolicy.retryOn(IOException.class, 3)).apply(10);
+            fail("expected an exception");
+        } catch (IOException e) {
+            assertEquals(e.getMessage(), "call 3");
+            assertEquals(e.getSuppressed().length, 2);
+            assertEquals(e.getSuppressed()[0].getMessage(), "call 1");
+            assertEquals(e.getSuppressed()[1].getMessage(), "call 2");
+        }
+    }
+
+    @Test
+    public void sharedExceptionInstancesAreNotSelfSuppressed() {
+        IOException shared = new IOException("shared");
+        IOException other = new IOException("other");
+        SupplierWithException<String, IOException> supplier = () -> {
+            throw calls.incrementAndGet() % 2 == 0 ? other : shared;
+        };
+        try {
+            supplier.withRetry(RetryPolicy.retryOn(IOException.class, 5)).get();
+            fail("expected an exception");
+        } catch (IOException e) {
+            assertSame(e, shared);
+            assertEquals(e.getSuppressed().length, 1);
+            assertSame(e.getSuppressed()[0], other);
+        }
+        assertEquals(calls.get(), 5);
+    }
+
+    @Test
+    public void nonRetryableExceptionsAreThrownImmediately() {
+        SupplierWithException<String, IOException> supplier = () -> {
+            calls.incrementAndGet();
+            throw new FileNotFoundException("gone");
+        };
+        RetryPolicy<IOException> policy = RetryPolicy.retryOn(IOException.class, 5)
+                .retryIf(e -> !(e instanceof FileNotFoundException));
+        try {
+            supplier.withRetry(policy).get();
+            fail("expected an exception");
+        } catch (IOException e) {
+            assertEquals(e.getMessage(), "gone");
+        }
+        assertEquals(calls.get(), 1);
+    }
+
+    @Test
+    public void circuitOpensAndRecovers() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker(2, 50, TimeUnit.MILLISECONDS);
+        SupplierWithException<String, IOException> supplier = ((SupplierWithException<String, IOException>) () -> failUntil(3))
+                .withCircuitBreaker(breaker);
+        for (int i = 1; i <= 2; ++i) {
+            try {
+                supplier.get();
+                fail("expected an exception");
+            } catch (IOException e) {
+                assertEquals(e.getMessage(), "call " + i);
+            }
+        }
+        assertEquals(breaker.getState(), CircuitBreaker.State.OPEN);
+        try {
+            supplier.get();
+            fail("expected an exception");
+        } catch (CircuitBreakerOpenException expected) {
+        }
+        assertEquals(calls.get(), 2);
+        Thread.sleep(100);
+        assertEquals(breaker.getState(), CircuitBreaker.State.HALF_OPEN);
+        assertEquals(supplier.get(), "call 3");
+        assertEquals(breaker.getState(), CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    public void ignoredExceptionsResetTheFailureCount() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker(2, 1, TimeUnit.HOURS, t -> !(t instanceof FileNotFoundException));
+        IOException[] exceptions = {new IOException("fail"), new FileNotFoundException("ignored"), new IOException("fail")};
+        for (IOException exception : exceptions) {
+            try {
+                breaker.call(() -> {
+                    throw exception;
+                });
+                fail("expected an exception");
+            } catch (IOException e) {
+                assertSame(e, exception);
+            }
+        }
+        assertEquals(breaker.getState(), CircuitBreaker.State.CLOSED);
+    }
+
+}
@@ -0,0 +1,114 @@
+package org.msyu.javautil.exceptions;
+
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class SupplierWithExceptionTest {
+
+    private final AtomicInteger calls = new AtomicInteger();
+
+    private Integer failOnFirstCall() throws IOException {
+        int call = calls.incrementAndGet();
+        if (call == 1) {
+            throw new IOException("first call");
+        }
+        return call;
+    }
+
+    @Test
+    public void memoizeRetriesFailuresAndThenCachesForever() throws Exception {
+        calls.set(0);
+        SupplierWithException<Integer, IOException> supplier = SupplierWithException.memoize(this::failOnFirstCall);
+        try {
+            supplier.get();
+            fail("expected an exception");
+        } catch (IOException e) {
+            assertEquals(e.getMessage(), "first call");
+        }
+        assertEquals(supplier.get(), Integer.valueOf(2));
+        assertEquals(supplier.get(), Integer.valueOf(2));
+        assertEquals(calls.get(), 2);
+    }
+
+    @Test
+    public void memoizeWithExpirationRecomputesAfterExpiry() throws Exception {
+        calls.set(1);
+        SupplierWithException<Integer, IOException> supplier =
+                SupplierWithException.memoizeWithExpiration(this::failOnFirstCall, 50, TimeUnit.MILLISECONDS);
+        assertEquals(supplier.get(), Integer.valueOf(2));
+        assertEquals(supplier.get(), Integer.valueOf(2));
+        Thread.sleep(100);
+        assertEquals(supplier.get(), Integer.valueOf(3));
+    }
+
+    @Test
+    public void singleFlightSharesTheOutcomeOfConcurrentCalls() throws Exception {
+        calls.set(0);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        SupplierWithException<Integer, Exception> supplier = SupplierWithException.singleFlight(() -> {
+            started.countDown();
+            release.await();
+            return failOnFirstCall();
+        });
+        CountDownLatch arrived = new CountDownLatch(2);
+        Thread[] joiners = new Thread[2];
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<?> first = executor.submit(() -> supplier.get());
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            Future<?>[] joining = new Future<?>[2];
+            for (int i = 0; i < 2; ++i) {
+                int index = i;
+                joining[i] = executor.submit(() -> {
+                    joiners[index] = Thread.currentThread();
+                    arrived.countDown();
+                    return supplier.get();
+                });
+            }
+            assertTrue(arrived.await(10, TimeUnit.SECONDS));
+            awaitBlocked(joiners);
+            release.countDown();
+            Future<?> second = joining[0];
+            Future<?> third = joining[1];
+            for (Future<?> future : new Future<?>[]{first, second, third}) {
+                try {
+                    future.get();
+                    fail("expected an exception");
+                } catch (ExecutionException e) {
+                    assertEquals(e.getCause().getMessage(), "first call");
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(calls.get(), 1);
+        assertEquals(supplier.get(), Integer.valueOf(2));
+    }
+
+    /**
+     * Waits until all the threads are blocked, which for the single-flight callers means joining the flight.
+     */
+    private static void awaitBlocked(Thread... threads) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        for (Thread thread : threads) {
+            while (thread.getState() != Thread.State.WAITING) {
+                assertTrue(System.nanoTime() - deadline < 0, thread + " did not block");
+                Thread.yield();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,74 @@
+package org.msyu.javautil.exceptions;
+
+import org.testng.annotations.Test;
+
+
+import static org.msyu.javautil.exceptions.CloseableChain.newCloseableChain;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class SuppressionCollectorTest extends CloseableChainTestBase {
+
+    @Test
+    public void collectsDestructorFailuresUpToCapacity() throws Exception {
+        CloseableChain<Dummy, Exception> chain = newCloseableChain()
+                .chain(__ -> new Dummy(false, true), Dummy::close)
+                .chain(prev -> new Dummy(false, true, prev), Dummy::close)
+                .chain(prev -> new Dummy(false, true, prev), Dummy::close);
+        SuppressionCollector collector = new SuppressionCollector(2);
+
+        CloseableChain.close(chain, collector);
+
+        assertEquals(collector.size(), 2);
+        assertEquals(collector.getDroppedCount(), 1);
+
+        Exception primary = new Exception("primary");
+        assertSame(collector.attachTo(primary), primary);
+        Throwable[] suppressed = primary.getSuppressed();
+        assertEquals(suppressed.length, 3);
+        assertEquals(suppressed[0].getMessage(), "d3");
+        assertEquals(suppressed[1].getMessage(), "d2");
+        DroppedExceptionsSummary summary = (DroppedExceptionsSummary) suppressed[2];
+        assertEquals(summary.getDroppedCount(), 1);
+        assertEquals(summary.getTotalCount(), 4);
+        assertTrue(collector.isEmpty());
+        assertSame(collector.attachTo(primary), primary);
+        assertEquals(primary.getSuppressed().length, 3, "the dropped count was not cleared");
+    }
+
+    @Test
+    public void collectorIsLeftEmptyIfNothingFails() throws Exception {
+        MutableCloseableChain<Exception> chain = MutableCloseableChain.newMutableCloseableChain();
+        chain.chain(null, __ -> new Dummy(false, false), Dummy::close);
+        SuppressionCollector collector = new SuppressionCollector(1);
+
+        chain.close(collector);
+
+        assertTrue(collector.isEmpty());
+    }
+
+    @Test
+    public void stacklessExceptionsHaveNoStackTrace() {
+        assertEquals(new StacklessException("busy").getStackTrace().length, 0);
+        assertEquals(new StacklessRuntimeException("busy").getStackTrace().length, 0);
+    }
+
+    @Test
+    public void preallocatedExceptionsDoNotAccumulateSuppressedExceptions() throws Exception {
+        StacklessException preallocated = new StacklessException("busy", null, false);
+        for (int i = 0; i < 2; ++i) {
+            try {
+                newCloseableChain()
+                        .chain(__ -> new Dummy(false, true), Dummy::close)
+                        .chain(__ -> { throw preallocated; }, __ -> {});
+                fail("expected an exception");
+            } catch (StacklessException e) {
+                assertSame(e, preallocated);
+            }
+        }
+        assertEquals(preallocated.getSuppressed().length, 0);
+    }
+
+}